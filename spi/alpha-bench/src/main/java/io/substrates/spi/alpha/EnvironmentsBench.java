@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the cached and chained lookups of {@link Environments}.
+ * <p>
+ * The benchmarks are run once per mode through the nested subclasses, so that
+ * throughput is reported in ops/s and average time in ns/op.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+@State ( Scope.Thread )
+@Warmup ( iterations = 3, time = 1 )
+@Measurement ( iterations = 5, time = 1 )
+@Fork ( 1 )
+public abstract class EnvironmentsBench {
+
+  private static final Object DEFAULT = new Object ();
+
+  @Param ( {"1", "8", "32"} )
+  public int depth;
+
+  private Name hit;
+  private Name miss;
+
+  private Environment cached;
+  private Environment chained;
+
+  @Setup
+  public void setup () {
+
+    hit =
+      Names.of (
+        "bench.environments.hit"
+      );
+
+    miss =
+      Names.of (
+        "bench.environments.miss"
+      );
+
+    cached =
+      Environments.cache (
+        Environments.single (
+          hit,
+          Boolean.TRUE
+        )
+      );
+
+    // the hit sits at the bottom of the chain so every lookup walks all primaries
+
+    var environment =
+      Environments.single (
+        hit,
+        Boolean.TRUE
+      );
+
+    for ( var i = 0; i < depth; i++ ) {
+
+      environment =
+        environment.override (
+          Environments.single (
+            Names.of ( "bench.environments.level" ).name ( "n" + i ),
+            i
+          )
+        );
+
+    }
+
+    chained =
+      environment;
+
+    cached.get (
+      miss,
+      DEFAULT
+    );
+
+  }
+
+  @Benchmark
+  public Object cached_hit () {
+
+    return
+      cached.get (
+        hit,
+        DEFAULT
+      );
+
+  }
+
+  @Benchmark
+  public Object cached_miss () {
+
+    return
+      cached.get (
+        miss,
+        DEFAULT
+      );
+
+  }
+
+  @Benchmark
+  public Object chained_hit () {
+
+    return
+      chained.get (
+        hit,
+        DEFAULT
+      );
+
+  }
+
+  @Benchmark
+  public Object chained_miss () {
+
+    return
+      chained.get (
+        miss,
+        DEFAULT
+      );
+
+  }
+
+  @BenchmarkMode ( Mode.Throughput )
+  @OutputTimeUnit ( TimeUnit.SECONDS )
+  public static class Throughput
+    extends EnvironmentsBench {}
+
+  @BenchmarkMode ( Mode.AverageTime )
+  @OutputTimeUnit ( TimeUnit.NANOSECONDS )
+  public static class AverageTime
+    extends EnvironmentsBench {}
+
+}
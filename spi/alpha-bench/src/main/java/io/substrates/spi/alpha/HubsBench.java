@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Hub;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks for the synchronous dispatch path of {@link Hubs}.
+ * <p>
+ * The benchmarks are run once per mode through the nested subclasses, so that
+ * throughput is reported in ops/s and average time in ns/op.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+@State ( Scope.Thread )
+@Warmup ( iterations = 3, time = 1 )
+@Measurement ( iterations = 5, time = 1 )
+@Fork ( 1 )
+public abstract class HubsBench {
+
+  private static final Long VALUE = 42L;
+
+  private static final Supplier< Long > SUPPLIER = () -> VALUE;
+
+  private static final List< Long > BATCH = Collections.nCopies ( 64, VALUE );
+
+  @Param ( {"0", "1", "8", "64"} )
+  public int subscribers;
+
+  @Param ( {"false", "true"} )
+  public boolean carriers;
+
+  private Hubs.Inlet< Long > inlet;
+
+  private long received;
+
+  @Setup
+  public void setup () {
+
+    final Hub< Long > hub =
+      Hubs.of (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.hub.carriers" ),
+          (Object) carriers
+        )
+      );
+
+    for ( var i = 0; i < subscribers; i++ ) {
+
+      hub.subscribe (
+        ( reference, registrar ) ->
+          registrar.register (
+            event ->
+              received +=
+                event.emittance ()
+          )
+      );
+
+    }
+
+    final var name =
+      Names.of (
+        "bench.hubs.inlet"
+      );
+
+    inlet =
+      Hubs.inlet (
+        hub,
+        References.of (
+          Types.of (
+            name
+          ),
+          name,
+          Environment.EMPTY
+        )
+      );
+
+    // resolve the outlets of every subscriber ahead of measurement
+
+    inlet.emit (
+      VALUE
+    );
+
+  }
+
+  @Benchmark
+  public long publish_value () {
+
+    inlet.emit (
+      VALUE
+    );
+
+    return
+      received;
+
+  }
+
+  @Benchmark
+  public long publish_supplier () {
+
+    inlet.emit (
+      SUPPLIER
+    );
+
+    return
+      received;
+
+  }
+
+  @Benchmark
+  public long publish_batch () {
+
+    inlet.emitAll (
+      BATCH
+    );
+
+    return
+      received;
+
+  }
+
+  @BenchmarkMode ( Mode.Throughput )
+  @OutputTimeUnit ( TimeUnit.SECONDS )
+  public static class Throughput
+    extends HubsBench {}
+
+  @BenchmarkMode ( Mode.AverageTime )
+  @OutputTimeUnit ( TimeUnit.NANOSECONDS )
+  public static class AverageTime
+    extends HubsBench {}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates.Environment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the name lookup paths of {@link Names}.
+ * <p>
+ * The benchmarks are run once per mode through the nested subclasses, so that
+ * throughput is reported in ops/s and average time in ns/op.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+@State ( Scope.Thread )
+@Warmup ( iterations = 3, time = 1 )
+@Measurement ( iterations = 5, time = 1 )
+@Fork ( 1 )
+public abstract class NamesBench {
+
+  private static final String ROOT      = "bench";
+  private static final String COMPOSITE = "bench.names.composite.path";
+  private static final String CHILD     = "child";
+  private static final String RELATIVE  = "relative.path";
+  private static final String CHAIN     = "io.substrates.spi.alpha.bench.names.single.chain";
+
+  private Names.Name prefix;
+
+  @Setup
+  public void setup () {
+
+    prefix =
+      Names.of (
+        ROOT
+      );
+
+    Names.of (
+      COMPOSITE
+    );
+
+    prefix.name (
+      CHAIN
+    );
+
+  }
+
+  @Benchmark
+  public Names.Name of_root () {
+
+    return
+      Names.of (
+        ROOT
+      );
+
+  }
+
+  @Benchmark
+  public Names.Name of_composite_cached () {
+
+    return
+      Names.of (
+        COMPOSITE
+      );
+
+  }
+
+  @Benchmark
+  public Names.Name of_composite_uncached (
+    final Uncached uncached
+  ) {
+
+    return
+      Names.of (
+        uncached.next ()
+      );
+
+  }
+
+  @Benchmark
+  public Names.Name of_class () {
+
+    return
+      Names.of (
+        NamesBench.class
+      );
+
+  }
+
+  @Benchmark
+  public Names.Name name_child () {
+
+    return
+      prefix.name (
+        CHILD
+      );
+
+  }
+
+  @Benchmark
+  public Names.Name name_relative () {
+
+    return
+      prefix.name (
+        RELATIVE
+      );
+
+  }
+
+  @Benchmark
+  public Names.Name name_chain () {
+
+    return
+      prefix.name (
+        CHAIN
+      );
+
+  }
+
+  /*
+   * Cycles through a bounded key space with names retained weakly, so that a
+   * key has most likely been collected by the time it recurs and is parsed
+   * again, without the trie growing across iterations.
+   */
+
+  @State ( Scope.Thread )
+  public static class Uncached {
+
+    private static final int KEYS = 1 << 16;
+
+    private final String[] keys =
+      new String[KEYS];
+
+    private int next;
+
+    @Setup ( Level.Trial )
+    public void setup () {
+
+      Names.configure (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.names.retention" ),
+          (Object) "WEAK"
+        )
+      );
+
+      for ( var i = 0; i < KEYS; i++ ) {
+        keys[i] = "bench.names.uncached.n" + i;
+      }
+
+    }
+
+    @TearDown ( Level.Trial )
+    public void tearDown () {
+
+      Names.configure (
+        Environment.EMPTY
+      );
+
+    }
+
+    String next () {
+
+      return
+        keys[next++ & KEYS - 1];
+
+    }
+
+  }
+
+  @BenchmarkMode ( Mode.Throughput )
+  @OutputTimeUnit ( TimeUnit.SECONDS )
+  public static class Throughput
+    extends NamesBench {}
+
+  @BenchmarkMode ( Mode.AverageTime )
+  @OutputTimeUnit ( TimeUnit.NANOSECONDS )
+  public static class AverageTime
+    extends NamesBench {}
+
+}
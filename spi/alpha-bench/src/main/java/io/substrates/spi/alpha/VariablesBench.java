@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the environment resolution of {@link Variables.Variable}.
+ * <p>
+ * The benchmarks are run once per mode through the nested subclasses, so that
+ * throughput is reported in ops/s and average time in ns/op.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+@State ( Scope.Thread )
+@Warmup ( iterations = 3, time = 1 )
+@Measurement ( iterations = 5, time = 1 )
+@Fork ( 1 )
+public abstract class VariablesBench {
+
+  private static final Integer DEFAULT = 0;
+
+  private Variables.Variable< Integer > variable;
+
+  private Environment typed;
+  private Environment string;
+
+  @Setup
+  public void setup () {
+
+    final Name name =
+      Names.of (
+        "bench.variables.value"
+      );
+
+    variable =
+      Variables.of (
+        name,
+        DEFAULT
+      );
+
+    typed =
+      Environments.single (
+        name,
+        (Object) 42
+      );
+
+    string =
+      Environments.single (
+        name,
+        (Object) "42"
+      );
+
+  }
+
+  @Benchmark
+  public Integer of_typed () {
+
+    return
+      variable.of (
+        typed
+      );
+
+  }
+
+  @Benchmark
+  public Integer of_string () {
+
+    return
+      variable.of (
+        string
+      );
+
+  }
+
+  @Benchmark
+  public Integer of_default () {
+
+    return
+      variable.of (
+        Environment.EMPTY
+      );
+
+  }
+
+  @BenchmarkMode ( Mode.Throughput )
+  @OutputTimeUnit ( TimeUnit.SECONDS )
+  public static class Throughput
+    extends VariablesBench {}
+
+  @BenchmarkMode ( Mode.AverageTime )
+  @OutputTimeUnit ( TimeUnit.NANOSECONDS )
+  public static class AverageTime
+    extends VariablesBench {}
+
+}
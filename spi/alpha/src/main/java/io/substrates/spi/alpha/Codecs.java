@@ -0,0 +1,475 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A utility class for encoding names to a compact binary form for event logs and IPC.
+ * <p>
+ * An encoder and decoder pair each build the same dictionary incrementally over
+ * a stream, so a name is only ever written out in full once, after which it is
+ * written as a varint index into the dictionary. A name is defined as the index
+ * of its deepest ancestor already defined followed by the UTF-8 segments below it,
+ * each of which is added to the dictionary in turn. Ephemeral segments are carried
+ * with every encoding of a name and never added to the dictionary.
+ * <p>
+ * An encoding starts with a varint head: an even head is a reference to the name
+ * at index {@code head >>> 1}; an odd head is a definition whose base ancestor is
+ * at index {@code (head >>> 1) - 1}, or is absent for a definition from a root,
+ * and which is followed by a varint count of interned segments, a varint count of
+ * ephemeral segments and then each segment as a varint length and its bytes.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class Codecs {
+
+  private Codecs () {}
+
+  private static IllegalArgumentException invalid (
+    final String reason
+  ) {
+
+    return
+      new IllegalArgumentException (
+        "Invalid Name Encoding: " + reason
+      );
+
+  }
+
+  private static void putVarint (
+    final ByteBuffer buffer,
+    int value
+  ) {
+
+    while ( ( value & ~0x7F ) != 0 ) {
+
+      buffer.put (
+        (byte) ( value & 0x7F | 0x80 )
+      );
+
+      value >>>= 7;
+
+    }
+
+    buffer.put (
+      (byte) value
+    );
+
+  }
+
+  private static int getVarint (
+    final ByteBuffer buffer
+  ) {
+
+    var value =
+      0;
+
+    for ( var shift = 0; shift < 35; shift += 7 ) {
+
+      final var b =
+        buffer.get ();
+
+      value |=
+        ( b & 0x7F ) << shift;
+
+      if ( b >= 0 ) {
+        return value;
+      }
+
+    }
+
+    throw
+      invalid (
+        "varint too long"
+      );
+
+  }
+
+  /**
+   * Returns an encoder with an empty dictionary, for a single stream.
+   */
+
+  static Encoder encoder () {
+
+    return
+      new Encoder ();
+
+  }
+
+  /**
+   * Returns a decoder with an empty dictionary, for a single stream.
+   */
+
+  static Decoder decoder () {
+
+    return
+      new Decoder ();
+
+  }
+
+  /**
+   * Encodes names to a single stream. Not thread-safe.
+   */
+
+  static final class Encoder {
+
+    /*
+     * The dictionary index plus one of each name, indexed by its id, along
+     * with the name itself, which keeps the id from being reused while the
+     * encoder is in use and guards against a stale id all the same.
+     */
+
+    private int[] indexes =
+      new int[64];
+
+    private Names.Name[] names =
+      new Names.Name[64];
+
+    private int count;
+
+    private Encoder () {}
+
+    private int indexOf (
+      final Names.Name name
+    ) {
+
+      final var id =
+        name.id ();
+
+      return
+        id < indexes.length && names[id] == name
+        ? indexes[id] - 1
+        : -1;
+
+    }
+
+    /**
+     * Writes the encoding of the name into the buffer at its position.
+     * <p>
+     * Should the buffer overflow, the dictionary is left unchanged and
+     * the bytes written past the original position must be discarded.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer has insufficient space remaining
+     */
+
+    ByteBuffer encode (
+      final Names.Name name,
+      final ByteBuffer buffer
+    ) {
+
+      if ( !name.isEphemeral () ) {
+
+        final var index =
+          indexOf (
+            name
+          );
+
+        if ( index >= 0 ) {
+
+          putVarint (
+            buffer,
+            index << 1
+          );
+
+          return
+            buffer;
+
+        }
+
+      }
+
+      final var ancestry =
+        name.ancestry ();
+
+      // ephemeral names only ever lie beneath interned ones
+
+      var interned =
+        ancestry.length;
+
+      while ( interned > 0 && ancestry[interned - 1].isEphemeral () ) {
+        interned--;
+      }
+
+      var from =
+        interned;
+
+      var base =
+        -1;
+
+      while ( from > 0 && ( base = indexOf ( ancestry[from - 1] ) ) < 0 ) {
+        from--;
+      }
+
+      putVarint (
+        buffer,
+        ( base + 1 ) << 1 | 1
+      );
+
+      putVarint (
+        buffer,
+        interned - from
+      );
+
+      putVarint (
+        buffer,
+        ancestry.length - interned
+      );
+
+      for ( var i = from; i < ancestry.length; i++ ) {
+
+        final var bytes =
+          ancestry[i].bytes ();
+
+        putVarint (
+          buffer,
+          bytes.length
+        );
+
+        buffer.put (
+          bytes
+        );
+
+      }
+
+      // only now the encoding is complete are the definitions added
+
+      for ( var i = from; i < interned; i++ ) {
+
+        final var defined =
+          ancestry[i];
+
+        final var id =
+          defined.id ();
+
+        if ( id >= indexes.length ) {
+
+          final var length =
+            max ( id + 1, indexes.length << 1 );
+
+          indexes =
+            Arrays.copyOf (
+              indexes,
+              length
+            );
+
+          names =
+            Arrays.copyOf (
+              names,
+              length
+            );
+
+        }
+
+        indexes[id] =
+          ++count;
+
+        names[id] =
+          defined;
+
+      }
+
+      return
+        buffer;
+
+    }
+
+  }
+
+  /**
+   * Decodes names from a single stream. Not thread-safe.
+   */
+
+  static final class Decoder {
+
+    private Names.Name[] names =
+      new Names.Name[64];
+
+    private int count;
+
+    private Decoder () {}
+
+    /**
+     * Reads the encoding of a name from the buffer at its position.
+     * <p>
+     * Should the buffer underflow, the dictionary is left unchanged, as with the
+     * encoder, so that the encoding can be read again once more bytes are at hand.
+     *
+     * @throws IllegalArgumentException         if the encoding is not valid for this stream
+     * @throws java.nio.BufferUnderflowException if the buffer holds an incomplete encoding
+     */
+
+    Names.Name decode (
+      final ByteBuffer buffer
+    ) {
+
+      final var head =
+        getVarint (
+          buffer
+        );
+
+      if ( ( head & 1 ) == 0 ) {
+
+        return
+          get (
+            head >>> 1
+          );
+
+      }
+
+      var name =
+        head >>> 1 == 0
+        ? null
+        : get ( ( head >>> 1 ) - 1 );
+
+      final var interned =
+        getVarint (
+          buffer
+        );
+
+      final var ephemeral =
+        getVarint (
+          buffer
+        );
+
+      if ( interned < 0 || ephemeral < 0 || interned + ephemeral == 0 ) {
+        throw invalid ( "no segments" );
+      }
+
+      if ( interned > buffer.remaining () ) {
+        throw new BufferUnderflowException ();
+      }
+
+      // staged until the encoding has been read in full
+
+      final var defined =
+        new Names.Name[interned];
+
+      for ( var i = 0; i < interned; i++ ) {
+
+        final var segment =
+          segment (
+            buffer
+          );
+
+        name =
+          name == null
+          ? Names.of ( segment )
+          : name.node ( segment );
+
+        defined[i] =
+          name;
+
+      }
+
+      for ( var i = 0; i < ephemeral; i++ ) {
+
+        if ( name == null ) {
+          throw invalid ( "ephemeral root" );
+        }
+
+        name =
+          name.ephemeral (
+            segment (
+              buffer
+            )
+          );
+
+      }
+
+      for ( final var definition : defined ) {
+
+        add (
+          definition
+        );
+
+      }
+
+      return
+        name;
+
+    }
+
+    private Names.Name get (
+      final int index
+    ) {
+
+      if ( index >= count ) {
+        throw invalid ( "undefined index " + index );
+      }
+
+      return
+        names[index];
+
+    }
+
+    private void add (
+      final Names.Name name
+    ) {
+
+      if ( count == names.length ) {
+
+        names =
+          Arrays.copyOf (
+            names,
+            count << 1
+          );
+
+      }
+
+      names[count++] =
+        name;
+
+    }
+
+    private static String segment (
+      final ByteBuffer buffer
+    ) {
+
+      final var length =
+        getVarint (
+          buffer
+        );
+
+      if ( length <= 0 ) {
+        throw invalid ( "segment length " + length );
+      }
+
+      if ( length > buffer.remaining () ) {
+        throw new BufferUnderflowException ();
+      }
+
+      final var bytes =
+        new byte[length];
+
+      buffer.get (
+        bytes
+      );
+
+      final var segment =
+        new String (
+          bytes,
+          UTF_8
+        );
+
+      if ( segment.indexOf ( '.' ) != -1 ) {
+        throw invalid ( "segment " + segment );
+      }
+
+      return
+        segment;
+
+    }
+
+  }
+
+}
@@ -0,0 +1,812 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.stream.Stream;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A utility class for opening name dictionaries persisted to files.
+ * <p>
+ * A dictionary is an append-only log of {@code (id, parent id, segment)} records from
+ * which a name trie, along with the ids of its names, can be rebuilt. The file starts
+ * with a header holding a magic number, a version and the offset just past the last
+ * complete record, which is only advanced once a record has been written in full.
+ * <p>
+ * A dictionary has a single writer: the first to open the file holds a lock on a sibling
+ * {@code .lock} file until closed, and any other, whether in this or another process,
+ * opens it read-only, with appends and rewrites ignored. The lock is taken on a file of
+ * its own as a rewrite replaces the dictionary file whole. Appended records are queued
+ * and written in batches by a task on the common pool, so that recording a name never
+ * blocks on the file.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class Dictionaries {
+
+  private static final int MAGIC   = 0x53554244;
+  private static final int VERSION = 1;
+  private static final int HEADER  = 16;
+  private static final int END     = 8;
+  private static final int BATCH   = 1 << 16;
+
+  /**
+   * The parent id recorded for a root.
+   */
+
+  static final int ROOT = -1;
+
+  private Dictionaries () {}
+
+  static Dictionary open (
+    final Path path
+  ) throws IOException {
+
+    final var guard =
+      FileChannel.open (
+        sibling ( path, ".lock" ),
+        CREATE,
+        WRITE
+      );
+
+    FileChannel channel = null;
+
+    try {
+
+      channel =
+        FileChannel.open (
+          path,
+          CREATE,
+          READ,
+          WRITE
+        );
+
+      return
+        new Dictionary (
+          path,
+          channel,
+          guard
+        );
+
+    } catch (
+      final IOException | RuntimeException error
+    ) {
+
+      if ( channel != null ) {
+        channel.close ();
+      }
+
+      guard.close ();
+
+      throw
+        error;
+
+    }
+
+  }
+
+  private static Path sibling (
+    final Path path,
+    final String suffix
+  ) {
+
+    return
+      path.resolveSibling (
+        path.getFileName () + suffix
+      );
+
+  }
+
+  /**
+   * A record of a single interned name, with a parent id of {@code -1} for a root.
+   */
+
+  record Entry(
+    int id,
+    int parent,
+    String segment
+  ) {
+
+    boolean isRoot () {
+
+      return
+        parent == ROOT;
+
+    }
+
+  }
+
+  static final class Dictionary
+    implements Closeable {
+
+    private static final AtomicIntegerFieldUpdater< Dictionary > SCHEDULED =
+      AtomicIntegerFieldUpdater.newUpdater (
+        Dictionary.class,
+        "scheduled"
+      );
+
+    private final Path                            path;
+    private final FileChannel                     guard;
+    private final FileLock                        lock;
+    private       FileChannel                     channel;
+    private final ConcurrentLinkedQueue< byte[] > pending = new ConcurrentLinkedQueue<> ();
+    private final ByteBuffer                      batch   = ByteBuffer.allocate ( BATCH );
+    private       int                             end;
+    private volatile boolean                      closed;
+    private volatile int                          scheduled;
+
+    private Dictionary (
+      final Path path,
+      final FileChannel channel,
+      final FileChannel guard
+    ) throws IOException {
+
+      this.path =
+        path;
+
+      this.channel =
+        channel;
+
+      this.guard =
+        guard;
+
+      lock =
+        lock (
+          guard
+        );
+
+      final var size =
+        channel.size ();
+
+      if ( size == 0 ) {
+
+        if ( lock != null ) {
+
+          write (
+            channel,
+            header (),
+            0
+          );
+
+        }
+
+        end =
+          HEADER;
+
+        return;
+
+      }
+
+      if ( size < HEADER || size > Integer.MAX_VALUE ) {
+        throw invalid ();
+      }
+
+      final var header =
+        ByteBuffer.allocate (
+          HEADER
+        );
+
+      while ( header.hasRemaining () ) {
+
+        if ( channel.read ( header, header.position () ) < 0 ) {
+          throw invalid ();
+        }
+
+      }
+
+      if ( header.getInt ( 0 ) != MAGIC || header.getInt ( 4 ) != VERSION ) {
+        throw invalid ();
+      }
+
+      end =
+        header.getInt (
+          END
+        );
+
+      if ( end < HEADER || end > size ) {
+        throw invalid ();
+      }
+
+    }
+
+    private static FileLock lock (
+      final FileChannel channel
+    ) throws IOException {
+
+      try {
+
+        return
+          channel.tryLock ();
+
+      } catch (
+        final OverlappingFileLockException error
+      ) {
+
+        // already held within this process
+
+        return
+          null;
+
+      }
+
+    }
+
+    private IOException invalid () {
+
+      return
+        new IOException (
+          "Invalid Dictionary: " + path
+        );
+
+    }
+
+    Path path () {
+
+      return
+        path;
+
+    }
+
+    /**
+     * Whether this dictionary holds the lock on its file and so records appends.
+     */
+
+    boolean isWritable () {
+
+      return
+        lock != null;
+
+    }
+
+    /**
+     * Returns the records in the dictionary in the order they were written, up to the
+     * first that does not lie wholly within the end or holds an invalid id, parent id,
+     * length or segment, so that a corrupt file yields only the records before it.
+     */
+
+    synchronized List< Entry > load () throws IOException {
+
+      write ();
+
+      final var entries =
+        new ArrayList< Entry > ();
+
+      final var view =
+        channel.map (
+          READ_ONLY,
+          0,
+          end
+        );
+
+      var offset =
+        HEADER;
+
+      while ( offset <= end - 12 ) {
+
+        final var id =
+          view.getInt (
+            offset
+          );
+
+        final var parent =
+          view.getInt (
+            offset + 4
+          );
+
+        final var length =
+          view.getInt (
+            offset + 8
+          );
+
+        if ( id < 0 || parent < ROOT || length <= 0 || length > end - offset - 12 ) {
+          break;
+        }
+
+        final var bytes =
+          new byte[length];
+
+        view.position (
+          offset + 12
+        ).get (
+          bytes
+        );
+
+        final var segment =
+          new String (
+            bytes,
+            UTF_8
+          );
+
+        if ( segment.indexOf ( '.' ) >= 0 ) {
+          break;
+        }
+
+        entries.add (
+          new Entry (
+            id,
+            parent,
+            segment
+          )
+        );
+
+        offset +=
+          12 + length;
+
+      }
+
+      return
+        entries;
+
+    }
+
+    /**
+     * Queues a record to be written by a task on the common pool, which is only
+     * scheduled when none is already pending.
+     */
+
+    void append (
+      final int id,
+      final int parent,
+      final byte[] segment
+    ) {
+
+      if ( lock == null || closed ) {
+        return;
+      }
+
+      pending.offer (
+        record (
+          id,
+          parent,
+          segment
+        )
+      );
+
+      schedule ();
+
+    }
+
+    /**
+     * Replaces every record in the dictionary with those given, parents before their
+     * children, followed by any appended since, compacting away the records of names
+     * that have since been collected or given other ids. The records are written to a
+     * sibling file, forced to storage and only then moved over the dictionary file, so
+     * that should the process stop while rewriting the dictionary is left as it was. A
+     * file system that cannot replace the file atomically leaves it uncompacted.
+     */
+
+    synchronized void rewrite (
+      final Stream< Entry > entries
+    ) throws IOException {
+
+      if ( lock == null || closed ) {
+        return;
+      }
+
+      final var temp =
+        sibling (
+          path,
+          ".compacting"
+        );
+
+      long position;
+
+      try ( final var target = FileChannel.open ( temp, CREATE, TRUNCATE_EXISTING, WRITE ) ) {
+
+        position =
+          write (
+            target,
+            header (),
+            0
+          );
+
+        final var iterator =
+          entries.iterator ();
+
+        while ( iterator.hasNext () ) {
+
+          final var entry =
+            iterator.next ();
+
+          position =
+            put (
+              target,
+              record (
+                entry.id (),
+                entry.parent (),
+                entry.segment ().getBytes ( UTF_8 )
+              ),
+              position
+            );
+
+        }
+
+        position =
+          drain (
+            target,
+            position
+          );
+
+        // the records are made durable ahead of the end that covers them
+
+        target.force (
+          true
+        );
+
+        write (
+          target,
+          offset ( position ),
+          END
+        );
+
+        target.force (
+          true
+        );
+
+      } catch (
+        final IOException | RuntimeException error
+      ) {
+
+        batch.clear ();
+
+        Files.deleteIfExists (
+          temp
+        );
+
+        throw
+          error;
+
+      }
+
+      try {
+
+        Files.move (
+          temp,
+          path,
+          ATOMIC_MOVE
+        );
+
+      } catch (
+        final AtomicMoveNotSupportedException error
+      ) {
+
+        Files.deleteIfExists (
+          temp
+        );
+
+        write ();
+
+        return;
+
+      }
+
+      final var previous =
+        channel;
+
+      channel =
+        FileChannel.open (
+          path,
+          READ,
+          WRITE
+        );
+
+      end =
+        (int) position;
+
+      previous.close ();
+
+      write ();
+
+    }
+
+    private void schedule () {
+
+      if ( SCHEDULED.compareAndSet ( this, 0, 1 ) ) {
+
+        ForkJoinPool.commonPool ().execute (
+          this::flush
+        );
+
+      }
+
+    }
+
+    private void flush () {
+
+      try {
+
+        synchronized ( this ) {
+          write ();
+        }
+
+      } catch (
+        final IOException error
+      ) {
+
+        error.printStackTrace ();
+
+      } finally {
+
+        scheduled =
+          0;
+
+        // a record queued after the last poll but before the flag was cleared
+
+        if ( !pending.isEmpty () ) {
+          schedule ();
+        }
+
+      }
+
+    }
+
+    /*
+     * Writes every pending record, with the end only published in the header once
+     * they are complete. Must be called holding the monitor.
+     */
+
+    private void write () throws IOException {
+
+      if ( closed ) {
+
+        pending.clear ();
+
+        return;
+
+      }
+
+      var position =
+        (long) end;
+
+      try {
+
+        for ( var record = pending.poll (); record != null; record = pending.poll () ) {
+
+          position =
+            put (
+              channel,
+              record,
+              position
+            );
+
+        }
+
+      } finally {
+
+        publish (
+          drain (
+            channel,
+            position
+          )
+        );
+
+      }
+
+    }
+
+    private long put (
+      final FileChannel target,
+      final byte[] record,
+      final long position
+    ) throws IOException {
+
+      if ( position + batch.position () + record.length > Integer.MAX_VALUE ) {
+
+        pending.clear ();
+
+        throw
+          new IOException (
+            "Dictionary Full: " + path
+          );
+
+      }
+
+      if ( record.length <= batch.remaining () ) {
+
+        batch.put (
+          record
+        );
+
+        return
+          position;
+
+      }
+
+      final var drained =
+        drain (
+          target,
+          position
+        );
+
+      if ( record.length <= batch.remaining () ) {
+
+        batch.put (
+          record
+        );
+
+        return
+          drained;
+
+      }
+
+      return
+        write (
+          target,
+          ByteBuffer.wrap ( record ),
+          drained
+        );
+
+    }
+
+    private long drain (
+      final FileChannel target,
+      final long position
+    ) throws IOException {
+
+      try {
+
+        return
+          write (
+            target,
+            batch.flip (),
+            position
+          );
+
+      } finally {
+
+        batch.clear ();
+
+      }
+
+    }
+
+    private void publish (
+      final long position
+    ) throws IOException {
+
+      if ( position != end ) {
+
+        write (
+          channel,
+          offset ( position ),
+          END
+        );
+
+        end =
+          (int) position;
+
+      }
+
+    }
+
+    private static long write (
+      final FileChannel target,
+      final ByteBuffer buffer,
+      final long position
+    ) throws IOException {
+
+      var offset =
+        position;
+
+      while ( buffer.hasRemaining () ) {
+
+        offset +=
+          target.write (
+            buffer,
+            offset
+          );
+
+      }
+
+      return
+        offset;
+
+    }
+
+    private static ByteBuffer header () {
+
+      return
+        ByteBuffer
+          .allocate ( HEADER )
+          .putInt ( MAGIC )
+          .putInt ( VERSION )
+          .putInt ( HEADER )
+          .rewind ();
+
+    }
+
+    private static ByteBuffer offset (
+      final long position
+    ) {
+
+      return
+        ByteBuffer
+          .allocate ( 4 )
+          .putInt ( (int) position )
+          .flip ();
+
+    }
+
+    private static byte[] record (
+      final int id,
+      final int parent,
+      final byte[] segment
+    ) {
+
+      return
+        ByteBuffer
+          .allocate ( 12 + segment.length )
+          .putInt ( id )
+          .putInt ( parent )
+          .putInt ( segment.length )
+          .put ( segment )
+          .array ();
+
+    }
+
+    @Override
+    public synchronized void close () throws IOException {
+
+      if ( closed ) {
+        return;
+      }
+
+      try {
+
+        if ( lock != null ) {
+
+          write ();
+
+          channel.force (
+            false
+          );
+
+        }
+
+      } finally {
+
+        closed =
+          true;
+
+        try {
+
+          channel.close ();
+
+        } finally {
+
+          guard.close ();
+
+        }
+
+      }
+
+    }
+
+  }
+
+}
@@ -6,136 +6,385 @@ package io.substrates.spi.alpha;
 
 import io.humainary.substrates.Substrates;
 
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import static io.humainary.substrates.Substrates.*;
 import static io.humainary.substrates.Substrates.Outlet.empty;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The hubs of this provider, along with the metrics of hubs and subscriptions
+ * taken from it, such as the events dropped by the overflow policy of an
+ * asynchronous hub.
+ * <p>
+ * Beyond the API, the inlet of a hub of this provider, obtained with
+ * {@link #inlet(Hub, Reference)}, emits a list of values as a single batch,
+ * which a subscriber registering a {@link BatchOutlet} receives whole, while
+ * those obtained with {@link #longInlet(Hub, Reference)} and
+ * {@link #doubleInlet(Hub, Reference)} emit primitive values, which a
+ * {@link LongOutlet} or {@link DoubleOutlet} receives without boxing.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class Hubs {
+
+  private static final Variables.Variable< Delivery > DELIVERY =
+    Variables.of (
+      Names.of ( "io.substrates.spi.alpha.hub.delivery" ),
+      Delivery.class,
+      Delivery.SYNC
+    );
+
+  private static final Variables.Variable< Integer > CAPACITY =
+    Variables.of (
+      Names.of ( "io.substrates.spi.alpha.hub.capacity" ),
+      (Integer) 1024
+    );
+
+  private static final Variables.Variable< Producers > PRODUCERS =
+    Variables.of (
+      Names.of ( "io.substrates.spi.alpha.hub.producers" ),
+      Producers.class,
+      Producers.MULTI
+    );
+
+  private static final Variables.Variable< Overflow > OVERFLOW =
+    Variables.of (
+      Names.of ( "io.substrates.spi.alpha.hub.overflow" ),
+      Overflow.class,
+      Overflow.BLOCK
+    );
+
+  private static final Variables.Variable< Integer > SAMPLE =
+    Variables.of (
+      Names.of ( "io.substrates.spi.alpha.hub.sample" ),
+      (Integer) 16
+    );
+
+  private static final Variables.Variable< Boolean > CARRIERS =
+    Variables.of (
+      Names.of ( "io.substrates.spi.alpha.hub.carriers" ),
+      Boolean.FALSE
+    );
+
+  private static final AtomicInteger THREADS =
+    new AtomicInteger ();
+
+  /*
+   * Drains the channels of asynchronous subscriptions, with a thread taken for
+   * a channel only while it has events pending, so that the threads in use track
+   * the busy channels rather than the subscriptions, and are let go once idle.
+   * The pool grows rather than queues, as a subscriber may block on a full ring
+   * that only another channel's drain can empty.
+   */
+
+  private static final Executor EXECUTOR =
+    new ThreadPoolExecutor (
+      0,
+      Integer.MAX_VALUE,
+      60L,
+      SECONDS,
+      new SynchronousQueue<> (),
+      runnable -> {
+
+        final var thread =
+          new Thread (
+            runnable,
+            "substrates-hub-" + THREADS.incrementAndGet ()
+          );
+
+        thread.setDaemon (
+          true
+        );
+
+        return
+          thread;
 
-final class Hubs {
+      }
+    );
 
   private Hubs () {}
 
+  /**
+   * How events emitted into a hub are delivered to its subscribers.
+   */
+
+  enum Delivery {
+
+    /**
+     * Events are delivered on the emitting thread before emit returns.
+     */
+
+    SYNC,
+
+    /**
+     * Events are handed to a bounded ring buffer per subscription, drained on a
+     * shared pool of threads, so a slow subscriber never stalls an emitter.
+     */
+
+    ASYNC
+
+  }
+
+  /**
+   * The threads that may emit into an asynchronous hub at once.
+   */
+
+  enum Producers {
+
+    /**
+     * A single thread at a time, which avoids a CAS per event and subscription.
+     */
+
+    SINGLE,
+
+    /**
+     * Any number of threads at once.
+     */
+
+    MULTI
+
+  }
+
+  /**
+   * What an emitter does when the ring buffer of an asynchronous subscription is full.
+   */
+
+  enum Overflow {
+
+    /**
+     * The emitter waits for the subscriber to make room, except where the subscriber
+     * emits into its own subscription from within its outlet, as the thread that would
+     * make room is then the one waiting, so that the event is dropped instead.
+     */
+
+    BLOCK,
+
+    /**
+     * The event being emitted is dropped.
+     */
+
+    DROP_NEWEST,
+
+    /**
+     * The oldest event still buffered is dropped to make room.
+     */
+
+    DROP_OLDEST,
+
+    /**
+     * Once the ring is half full only one in every {@code hub.sample} events is
+     * buffered, with the event being emitted dropped should the ring still be full.
+     */
+
+    SAMPLE,
+
+    /**
+     * Events are held by reference until the ring has been drained, with each
+     * replacing any still pending for the same reference.
+     */
+
+    CONFLATE
+
+  }
+
   static < E > Hub< E > of () {
 
     return
       new Memory<> (
-        Environment.EMPTY
+        Environment.EMPTY,
+        null,
+        false
       );
 
   }
 
+  /**
+   * Returns a hub delivering events as configured within the environment.
+   */
+
   static < E > Hub< E > of (
     final Environment environment
   ) {
 
+    final var async =
+      DELIVERY.of ( environment ) == Delivery.ASYNC;
+
+    // carriers are never handed to a ring, which would retain them
+
     return
       new Memory<> (
-        environment
+        environment,
+        async
+        ? new Buffering (
+          capacity ( CAPACITY.of ( environment ) ),
+          PRODUCERS.of ( environment ) == Producers.SINGLE,
+          OVERFLOW.of ( environment ),
+          max ( 1, SAMPLE.of ( environment ) )
+        )
+        : null,
+        !async && CARRIERS.of ( environment )
       );
 
   }
 
-  private static final class Memory< E >
-    implements Hub< E > {
+  /**
+   * Returns the number of events dropped across every subscription of the hub, past
+   * and present, which is always zero for synchronous delivery.
+   *
+   * @param hub a hub of this provider
+   * @throws IllegalArgumentException if the hub is not of this provider
+   */
 
-    @SuppressWarnings ( "rawtypes" )
-    private static final AtomicReferenceFieldUpdater< Memory, Entry > U =
-      AtomicReferenceFieldUpdater.newUpdater (
-        Memory.class,
-        Entry.class,
-        "entries"
-      );
+  public static long drops (
+    final Hub< ? > hub
+  ) {
 
-    private final Environment environment;
+    if ( hub instanceof Memory< ? > memory ) {
+      return memory.drops ();
+    }
 
-    private volatile Entry< E > entries;
+    throw
+      new IllegalArgumentException (
+        "Invalid Hub: " + hub
+      );
 
-    public Memory (
-      final Environment environment
-    ) {
+  }
 
-      this.environment =
-        environment;
+  /**
+   * Returns the number of events dropped by the overflow policy of the subscription,
+   * which is always zero for synchronous delivery.
+   *
+   * @param subscription a subscription to a hub of this provider
+   * @throws IllegalArgumentException if the subscription is not of this provider
+   */
+
+  public static long drops (
+    final Subscription subscription
+  ) {
 
+    if ( subscription instanceof Entry< ? > entry ) {
+      return entry.drops ();
     }
 
-    private static < E > Entry< E > of (
-      final Membership< E > membership,
-      final Entry< E > next
-    ) {
+    throw
+      new IllegalArgumentException (
+        "Invalid Subscription: " + subscription
+      );
 
-      return
-        new Entry<> (
-          membership,
-          next
-        );
+  }
 
-    }
+  private static int capacity (
+    final int capacity
+  ) {
 
-    private static < E > Entry< E > scan (
-      final Entry< E > initial
-    ) {
+    // rounded up to a power of two so a sequence can be masked into an index,
+    // and to at least two slots, as with one the sequence marking a filled slot
+    // equals the one marking it free for the next claim
 
-      var next =
-        initial;
+    return
+      capacity <= 2
+      ? 2
+      : Integer.highestOneBit ( capacity - 1 ) << 1;
 
-      while (
-        next != null &&
-          next.membership == null
-      ) {
+  }
 
-        next =
-          next.next;
+  /*
+   * A generic array cannot be created directly, so every typed array of the hub
+   * is made here, with its element class standing in for the erased type.
+   */
 
-      }
+  @SuppressWarnings ( "unchecked" )
+  private static < T > T[] array (
+    final Class< ? super T > type,
+    final int length
+  ) {
 
-      return
-        next;
+    return
+      (T[]) Array.newInstance (
+        type,
+        length
+      );
 
-    }
+  }
 
+  /*
+   * The configuration of the ring buffer given each subscription of an asynchronous hub.
+   */
 
-    public void publish (
-      final Reference reference,
-      final E value
-    ) {
+  private record Buffering(
+    int capacity,
+    boolean single,
+    Overflow overflow,
+    int sample
+  ) {}
 
-      final var head =
-        entries;
+  private static final class Memory< E >
+    implements Hub< E > {
 
-      if ( head != null ) {
+    @SuppressWarnings ( "rawtypes" )
+    private static final AtomicReferenceFieldUpdater< Memory, Entry[] > U =
+      AtomicReferenceFieldUpdater.newUpdater (
+        Memory.class,
+        Entry[].class,
+        "entries"
+      );
 
-        dispatch (
-          reference,
-          value,
-          head
-        );
+    private final Environment environment;
 
-      }
+    private final Buffering buffering;
 
-    }
+    final boolean carriers;
 
-    public void publish (
-      final Reference reference,
-      final Supplier< ? extends E > supplier
-    ) {
+    private final LongAdder drops =
+      new LongAdder ();
 
-      final var head =
-        entries;
+    /*
+     * An immutable snapshot of the subscriptions, replaced by CAS on every
+     * change, which also makes each snapshot the epoch its resolutions
+     * were made in.
+     */
 
-      if ( head != null ) {
+    private volatile Entry< E >[] entries =
+      array (
+        Entry.class,
+        0
+      );
 
-        dispatch (
-          reference,
-          supplier,
-          head
-        );
+    public Memory (
+      final Environment environment,
+      final Buffering buffering,
+      final boolean carriers
+    ) {
 
-      }
+      this.environment =
+        environment;
+
+      this.buffering =
+        buffering;
+
+      this.carriers =
+        carriers;
 
     }
 
@@ -144,235 +393,224 @@ final class Hubs {
       final Subscriber< E > subscriber
     ) {
 
-      final var registration =
+      final var membership =
         new Membership<> (
           subscriber
         );
 
-      //noinspection unchecked
-      return
-        U.updateAndGet (
+      final Outlet< E > registration =
+        buffering != null
+        ? new Channel<> ( membership, buffering, drops )
+        : membership;
+
+      final var entry =
+        new Entry<> (
           this,
-          next ->
-            of (
-              registration,
-              scan (
-                next
-              )
-            )
+          registration
         );
 
-    }
-
-
-    private void dispatch (
-      final Reference reference,
-      final E emittance,
-      final Entry< E > head
-    ) {
-
-      assert head != null;
+      update (
+        current ->
+          append (
+            current,
+            entry
+          )
+      );
 
-      var current =
-        head;
+      if ( registration instanceof Channel< E > channel ) {
 
-      Entry< E > prev =
-        null;
+        channel.start (
+          entry
+        );
 
-      Event< E > event = null;
+      }
 
-      do {
+      return
+        entry;
 
-        final var next =
-          scan (
-            current
-          );
+    }
 
-        if ( next != current ) {
+    void remove (
+      final Entry< E > entry
+    ) {
 
+      update (
+        current ->
           remove (
-            prev,
-            next,
-            head
-          );
-
-          if ( next == null )
-            return;
-
-          current =
-            next;
+            current,
+            entry
+          )
+      );
 
-        }
+    }
 
-        if ( event == null ) {
+    // the updater is raw, so the snapshot is swapped here to keep its element type
 
-          event =
-            new Event<> (
-              reference,
-              emittance
-            );
+    private void update (
+      final UnaryOperator< Entry< E >[] > operator
+    ) {
 
-        }
+      Entry< E >[] current;
 
-        current
-          .accept (
-            event
-          );
+      do {
 
-        prev =
-          current;
+        current =
+          entries;
 
       } while (
-        ( current = current.next ) != null
+        !U.compareAndSet (
+          this,
+          current,
+          operator.apply ( current )
+        )
       );
 
     }
 
-    private void dispatch (
-      final Reference emitter,
-      final Supplier< ? extends E > supplier,
-      final Entry< E > head
+    private static < E > Entry< E >[] append (
+      final Entry< E >[] entries,
+      final Entry< E > entry
     ) {
 
-      assert head != null;
+      final var result =
+        Arrays.copyOf (
+          entries,
+          entries.length + 1
+        );
 
-      var current =
-        head;
+      result[entries.length] =
+        entry;
 
-      Entry< E > prev =
-        null;
+      return
+        result;
 
-      Event< E > event = null;
+    }
 
-      do {
+    private static < E > Entry< E >[] remove (
+      final Entry< E >[] entries,
+      final Entry< E > entry
+    ) {
 
-        final var next =
-          scan (
-            current
-          );
+      for ( var i = 0; i < entries.length; i++ ) {
 
-        if ( next != current ) {
+        if ( entries[i] == entry ) {
 
-          remove (
-            prev,
-            next,
-            head
-          );
+          final var result =
+            Arrays.copyOf (
+              entries,
+              entries.length - 1
+            );
 
-          if ( next == null )
-            return;
+          System.arraycopy (
+            entries,
+            i + 1,
+            result,
+            i,
+            result.length - i
+          );
 
-          current =
-            next;
+          return
+            result;
 
         }
 
-        if ( event == null ) {
-
-          event =
-            new Event<> (
-              emitter,
-              supplier.get ()
-            );
+      }
 
-        }
+      return
+        entries;
 
-        current
-          .accept (
-            event
-          );
+    }
 
-        prev =
-          current;
+    Entry< E >[] entries () {
 
-      } while (
-        ( current = current.next ) != null
-      );
+      return
+        entries;
 
     }
 
-    private void remove (
-      final Entry< E > prev,
-      final Entry< E > next,
-      final Entry< E > head
-    ) {
+    /*
+     * Resolves the outlet of every live subscriber within the current
+     * snapshot for the reference, leaving out those that registered none.
+     */
 
-      if ( prev != null ) {
+    @SuppressWarnings ( "unchecked" )
+    Resolution< E > resolve (
+      final Reference reference
+    ) {
 
-        prev.next =
-          next;
+      final var snapshot =
+        entries;
 
-      } else {
+      final var outlets =
+        new ArrayList< Outlet< E > > ();
 
-        U.compareAndSet (
-          this,
-          head,
-          next
-        );
+      final var subscriptions =
+        new ArrayList< Entry< E > > ();
 
-      }
+      for ( final var current : snapshot ) {
 
-    }
+        final var target =
+          current.membership;
 
-    @Override
-    public Substrates.Inlet< E > inlet (
-      final Reference reference
-    ) {
+        if ( target == null ) {
+          continue;
+        }
 
-      return
-        new Inlet<> (
-          this,
-          reference
-        );
+        try {
 
-    }
+          // an asynchronous subscriber resolves its outlets on its own thread
 
-    @Override
-    public Environment environment () {
+          final var outlet =
+            target instanceof Membership< E > membership
+            ? membership.outlet ( reference )
+            : target;
 
-      return
-        environment;
+          if ( outlet != null && outlet != empty () ) {
 
-    }
+            outlets.add (
+              outlet
+            );
 
-  }
+            subscriptions.add (
+              current
+            );
 
+          }
 
-  static final class Entry< E >
-    implements Outlet< E >,
-               Subscription {
+        } catch (
+          final Throwable error
+        ) {
 
-    volatile Membership< E > membership;
+          error.printStackTrace ();
 
-    Entry< E > next;
+          current.discard ();
 
-    Entry (
-      final Membership< E > membership,
-      final Entry< E > next
-    ) {
+        }
 
-      this.membership =
-        membership;
+      }
 
-      this.next =
-        next;
+      return
+        new Resolution<> (
+          snapshot,
+          outlets.toArray ( Hubs.< Outlet< E > > array ( Outlet.class, outlets.size () ) ),
+          subscriptions.toArray ( Hubs.< Entry< E > > array ( Entry.class, subscriptions.size () ) )
+        );
 
     }
 
-
-    @Override
-    public void accept (
+    void dispatch (
+      final Resolution< E > resolution,
       final Substrates.Event< E > event
     ) {
 
-      final var target =
-        membership;
+      final var outlets =
+        resolution.outlets ();
 
-      if ( target != null ) {
+      for ( var i = 0; i < outlets.length; i++ ) {
 
         try {
 
-          target.accept (
+          outlets[i].accept (
             event
           );
 
@@ -380,10 +618,11 @@ final class Hubs {
           final Throwable error
         ) {
 
-          error.printStackTrace ();
-
-          membership =
-            null;
+          fail (
+            resolution,
+            i,
+            error
+          );
 
         }
 
@@ -391,37 +630,808 @@ final class Hubs {
 
     }
 
+    /*
+     * Dispatches the value within the carrier of the emitting thread, or
+     * within an event of its own when the carrier is already in use by an
+     * emit further up the stack of the thread.
+     */
 
-    @Override
-    public void cancel () {
+    void carry (
+      final Resolution< E > resolution,
+      final Reference reference,
+      final E value
+    ) {
 
-      if ( membership != null ) {
+      final Carrier< E > carrier =
+        Carrier.acquire ();
 
-        membership =
-          null;
+      if ( carrier == null ) {
 
-      } else {
+        dispatch (
+          resolution,
+          new Event<> (
+            reference,
+            value
+          )
+        );
 
-        throw
-          new IllegalStateException ();
+        return;
 
       }
 
-    }
+      try {
 
-  }
+        dispatch (
+          resolution,
+          carrier.set (
+            reference,
+            value
+          )
+        );
 
+      } finally {
 
-  private static final class Membership< E >
-    implements Outlet< E > {
+        carrier.release ();
 
-    private final Map< Reference, Outlet< E > > outlets =
-      new ConcurrentHashMap<> ( 50 );
+      }
 
-    private final Subscriber< E > delegate;
+    }
 
-    Membership (
-      final Subscriber< E > subscriber
+    static < E > void fail (
+      final Resolution< E > resolution,
+      final int index,
+      final Throwable error
+    ) {
+
+      error.printStackTrace ();
+
+      resolution
+        .subscriptions ()[index]
+        .discard ();
+
+    }
+
+    /*
+     * Hands the batch whole to each batch outlet and value by value to every
+     * other, with the events of the values only made once and then shared.
+     */
+
+    @SuppressWarnings ( "unchecked" )
+    void dispatch (
+      final Resolution< E > resolution,
+      final Reference reference,
+      final List< ? extends E > values
+    ) {
+
+      final var outlets =
+        resolution.outlets ();
+
+      Event< E >[] events =
+        null;
+
+      for ( var i = 0; i < outlets.length; i++ ) {
+
+        final var outlet =
+          outlets[i];
+
+        try {
+
+          if ( outlet instanceof BatchOutlet< E > batch ) {
+
+            batch.accept (
+              reference,
+              values
+            );
+
+          } else {
+
+            if ( events == null ) {
+
+              events =
+                array (
+                  Event.class,
+                  values.size ()
+                );
+
+              // a single pass, as the list need not support indexed access in constant time
+
+              var j = 0;
+
+              for ( final var value : values ) {
+
+                events[j++] =
+                  new Event<> (
+                    reference,
+                    value
+                  );
+
+              }
+
+            }
+
+            for ( final var event : events ) {
+
+              outlet.accept (
+                event
+              );
+
+            }
+
+          }
+
+        } catch (
+          final Throwable error
+        ) {
+
+          fail (
+            resolution,
+            i,
+            error
+          );
+
+        }
+
+      }
+
+    }
+
+    @Override
+    public Inlet< E > inlet (
+      final Reference reference
+    ) {
+
+      return
+        new Inlet<> (
+          this,
+          reference
+        );
+
+    }
+
+    @Override
+    public Environment environment () {
+
+      return
+        environment;
+
+    }
+
+    /**
+     * Returns the number of events dropped across every subscription, past and present.
+     */
+
+    long drops () {
+
+      return
+        drops.sum ();
+
+    }
+
+  }
+
+  /*
+   * The outlets resolved for a reference, along with the subscriptions
+   * they belong to, as of a snapshot of the subscriptions of the hub.
+   */
+
+  private record Resolution< E >(
+    Entry< E >[] snapshot,
+    Outlet< E >[] outlets,
+    Entry< E >[] subscriptions
+  ) {}
+
+
+  static final class Entry< E >
+    implements Subscription {
+
+    private final Memory< E > memory;
+
+    volatile Outlet< E > membership;
+
+    Entry (
+      final Memory< E > memory,
+      final Outlet< E > membership
+    ) {
+
+      this.memory =
+        memory;
+
+      this.membership =
+        membership;
+
+    }
+
+    /**
+     * Returns the number of events dropped by the overflow policy of this
+     * subscription, which is always zero for synchronous delivery.
+     */
+
+    long drops () {
+
+      return
+        membership instanceof Channel< E > channel
+        ? channel.drops ()
+        : 0L;
+
+    }
+
+    /*
+     * Drops a subscriber that has failed.
+     */
+
+    void discard () {
+
+      membership =
+        null;
+
+      memory.remove (
+        this
+      );
+
+    }
+
+    @Override
+    public void cancel () {
+
+      final var target =
+        membership;
+
+      if ( target != null ) {
+
+        discard ();
+
+        if ( target instanceof Channel< E > channel ) {
+          channel.close ();
+        }
+
+      } else {
+
+        throw
+          new IllegalStateException ();
+
+      }
+
+    }
+
+  }
+
+
+  /*
+   * Hands events from the emitting threads to the consumer of a single
+   * subscription through a bounded ring of pre-allocated slots. Each slot has a
+   * sequence, as in Vyukov's bounded queue, that tells producers when the slot
+   * is free to claim and the consumer when it has been filled, so neither side
+   * ever takes a lock. What an emitter does when the ring is full, or for SAMPLE
+   * half full, is decided by the overflow policy.
+   *
+   * The consumer is a task on the shared executor, scheduled by whichever emitter
+   * first finds it unscheduled, which drains at most a ring's worth of events
+   * before handing its thread back, so that a channel holds no thread while idle.
+   */
+
+  private static final class Channel< E >
+    implements Outlet< E >,
+               Runnable {
+
+    @SuppressWarnings ( "rawtypes" )
+    private static final AtomicLongFieldUpdater< Channel > TAIL =
+      AtomicLongFieldUpdater.newUpdater (
+        Channel.class,
+        "tail"
+      );
+
+    @SuppressWarnings ( "rawtypes" )
+    private static final AtomicLongFieldUpdater< Channel > HEAD =
+      AtomicLongFieldUpdater.newUpdater (
+        Channel.class,
+        "head"
+      );
+
+    @SuppressWarnings ( "rawtypes" )
+    private static final AtomicIntegerFieldUpdater< Channel > SCHEDULED =
+      AtomicIntegerFieldUpdater.newUpdater (
+        Channel.class,
+        "scheduled"
+      );
+
+    private static final int SPINS = 128;
+
+    private final Membership< E >                         membership;
+    private final Object[]                                slots;
+    private final AtomicLongArray                         sequences;
+    private final int                                     mask;
+    private final boolean                                 single;
+    private final Overflow                                overflow;
+    private final int                                     sample;
+    private final Map< Reference, Substrates.Event< E > > conflated;
+    private final LongAdder                               drops;
+    private final LongAdder                               total;
+
+    private volatile long tail;
+
+    // written by the consumer alone, except when DROP_OLDEST evicts by CAS
+
+    private volatile long head;
+
+    // held until started, so that no drain runs before the entry is known
+
+    private volatile int scheduled = 1;
+
+    private volatile boolean closed;
+
+    // a racy count, as sampling needs no more than roughly one in n
+
+    private int sampled;
+
+    private Entry< E > entry;
+
+    // the thread draining the ring, only ever compared against the current thread
+
+    private Thread drainer;
+
+    Channel (
+      final Membership< E > membership,
+      final Buffering buffering,
+      final LongAdder total
+    ) {
+
+      final var capacity =
+        buffering.capacity ();
+
+      this.membership =
+        membership;
+
+      slots =
+        new Object[capacity];
+
+      sequences =
+        new AtomicLongArray (
+          capacity
+        );
+
+      for ( var i = 0; i < capacity; i++ ) {
+        sequences.set ( i, i );
+      }
+
+      mask =
+        capacity - 1;
+
+      single =
+        buffering.single ();
+
+      overflow =
+        buffering.overflow ();
+
+      sample =
+        buffering.sample ();
+
+      conflated =
+        overflow == Overflow.CONFLATE
+        ? new ConcurrentHashMap<> ()
+        : null;
+
+      drops =
+        new LongAdder ();
+
+      this.total =
+        total;
+
+    }
+
+    void start (
+      final Entry< E > entry
+    ) {
+
+      this.entry =
+        entry;
+
+      release ();
+
+    }
+
+    void close () {
+
+      closed =
+        true;
+
+    }
+
+    long drops () {
+
+      return
+        drops.sum ();
+
+    }
+
+    private void drop () {
+
+      drops.increment ();
+
+      total.increment ();
+
+    }
+
+    @Override
+    public void accept (
+      final Substrates.Event< E > event
+    ) {
+
+      if ( closed ) {
+        return;
+      }
+
+      switch ( overflow ) {
+
+        case BLOCK -> block ( event );
+
+        case DROP_NEWEST -> {
+          if ( !offer ( event ) ) drop ();
+        }
+
+        case DROP_OLDEST -> {
+          while ( !offer ( event ) ) evict ();
+        }
+
+        case SAMPLE -> {
+          if ( !admit () || !offer ( event ) ) drop ();
+        }
+
+        case CONFLATE -> conflate ( event );
+
+      }
+
+      // a volatile read, ordered after the write of the slot's sequence
+
+      if ( scheduled == 0 ) {
+        schedule ();
+      }
+
+    }
+
+    private void schedule () {
+
+      if ( SCHEDULED.compareAndSet ( this, 0, 1 ) ) {
+
+        EXECUTOR.execute (
+          this
+        );
+
+      }
+
+    }
+
+    /*
+     * Clears the flag and then looks again, so that an event offered after
+     * the ring was last found empty, but before the flag was cleared, is not
+     * left pending without a drain scheduled.
+     */
+
+    private void release () {
+
+      scheduled =
+        0;
+
+      if ( ready () ) {
+        schedule ();
+      }
+
+    }
+
+    private void block (
+      final Substrates.Event< E > event
+    ) {
+
+      if ( offer ( event ) ) {
+        return;
+      }
+
+      // the drain would never make room for an event emitted from within it
+
+      if ( drainer == Thread.currentThread () ) {
+
+        drop ();
+
+        return;
+
+      }
+
+      for ( var spins = 0; !offer ( event ); spins++ ) {
+
+        if ( closed ) {
+          return;
+        }
+
+        if ( spins < SPINS ) {
+          Thread.onSpinWait ();
+        } else {
+          Thread.yield ();
+        }
+
+      }
+
+    }
+
+    /*
+     * Admits every event while the ring is less than half full
+     * and thereafter only one in every sample events.
+     */
+
+    private boolean admit () {
+
+      if ( tail - head < ( slots.length + 1 ) >>> 1 ) {
+        return true;
+      }
+
+      if ( ++sampled < sample ) {
+        return false;
+      }
+
+      sampled =
+        0;
+
+      return
+        true;
+
+    }
+
+    /*
+     * Once the ring overflows, events are held by reference, with each
+     * replacing any still pending for its reference, until the consumer
+     * has drained the ring and then these. Events of a reference are so
+     * never delivered out of the order they were emitted by a thread.
+     */
+
+    private void conflate (
+      final Substrates.Event< E > event
+    ) {
+
+      if ( conflated.isEmpty () && offer ( event ) ) {
+        return;
+      }
+
+      if (
+        conflated.put (
+          event.emitter (),
+          event
+        ) != null
+      ) {
+
+        drop ();
+
+      }
+
+    }
+
+    private boolean offer (
+      final Substrates.Event< E > event
+    ) {
+
+      for ( ; ; ) {
+
+        final var claim =
+          tail;
+
+        final var index =
+          (int) claim & mask;
+
+        final var difference =
+          sequences.get ( index ) - claim;
+
+        if ( difference < 0 ) {
+          return false;
+        }
+
+        if ( difference == 0 ) {
+
+          if ( single ) {
+
+            TAIL.lazySet (
+              this,
+              claim + 1
+            );
+
+          } else if ( !TAIL.compareAndSet ( this, claim, claim + 1 ) ) {
+
+            continue;
+
+          }
+
+          slots[index] =
+            event;
+
+          // a volatile write, ordered before the read of scheduled
+
+          sequences.set (
+            index,
+            claim + 1
+          );
+
+          return
+            true;
+
+        }
+
+      }
+
+    }
+
+    /*
+     * Removes the oldest event to make room, competing with the consumer
+     * by CAS on the head; losing to it has made room all the same.
+     */
+
+    private void evict () {
+
+      final var claim =
+        head;
+
+      final var index =
+        (int) claim & mask;
+
+      if ( sequences.get ( index ) == claim + 1 && HEAD.compareAndSet ( this, claim, claim + 1 ) ) {
+
+        slots[index] =
+          null;
+
+        sequences.set (
+          index,
+          claim + slots.length
+        );
+
+        drop ();
+
+      }
+
+    }
+
+    @SuppressWarnings ( "unchecked" )
+    private Substrates.Event< E > poll () {
+
+      for ( ; ; ) {
+
+        final var claim =
+          head;
+
+        final var index =
+          (int) claim & mask;
+
+        if ( sequences.get ( index ) != claim + 1 ) {
+          return null;
+        }
+
+        if ( overflow == Overflow.DROP_OLDEST ) {
+
+          if ( !HEAD.compareAndSet ( this, claim, claim + 1 ) ) {
+            continue;
+          }
+
+        } else {
+
+          HEAD.lazySet (
+            this,
+            claim + 1
+          );
+
+        }
+
+        final var event =
+          (Substrates.Event< E >) slots[index];
+
+        slots[index] =
+          null;
+
+        sequences.lazySet (
+          index,
+          claim + slots.length
+        );
+
+        return
+          event;
+
+      }
+
+    }
+
+    private Substrates.Event< E > pending () {
+
+      if ( conflated == null || conflated.isEmpty () ) {
+        return null;
+      }
+
+      // removed by value so as not to lose an event replacing the one taken
+
+      for ( final var pending : conflated.entrySet () ) {
+
+        if ( conflated.remove ( pending.getKey (), pending.getValue () ) ) {
+          return pending.getValue ();
+        }
+
+      }
+
+      return
+        null;
+
+    }
+
+    private boolean ready () {
+
+      final var claim =
+        head;
+
+      return
+        sequences.get ( (int) claim & mask ) == claim + 1
+          || conflated != null && !conflated.isEmpty ();
+
+    }
+
+    @Override
+    public void run () {
+
+      drainer =
+        Thread.currentThread ();
+
+      for ( var budget = slots.length; budget > 0 && !closed; budget-- ) {
+
+        var event =
+          poll ();
+
+        if ( event == null ) {
+
+          event =
+            pending ();
+
+        }
+
+        if ( event == null ) {
+          break;
+        }
+
+        try {
+
+          membership.accept (
+            event
+          );
+
+        } catch (
+          final Throwable error
+        ) {
+
+          error.printStackTrace ();
+
+          closed =
+            true;
+
+          entry.discard ();
+
+        }
+
+      }
+
+      // cleared ahead of the release, after which another thread may take over
+
+      drainer =
+        null;
+
+      // once closed the flag stays set and the channel is never scheduled again
+
+      if ( !closed ) {
+        release ();
+      }
+
+    }
+
+  }
+
+  private static final class Membership< E >
+    implements Outlet< E > {
+
+    private final Map< Reference, Outlet< E > > outlets =
+      new ConcurrentHashMap<> ( 50 );
+
+    private final Subscriber< E > delegate;
+
+    Membership (
+      final Subscriber< E > subscriber
     ) {
 
       delegate =
@@ -430,120 +1440,774 @@ final class Hubs {
     }
 
     @Override
-    public void accept (
-      final Substrates.Event< E > event
+    public void accept (
+      final Substrates.Event< E > event
+    ) {
+
+      final var outlet =
+        outlet (
+          event.emitter ()
+        );
+
+      if ( outlet != empty () ) {
+
+        outlet.accept (
+          event
+        );
+
+      }
+
+    }
+
+    Outlet< E > outlet (
+      final Reference reference
+    ) {
+
+      return
+        outlets.computeIfAbsent (
+          reference,
+          name ->
+            newOutlet (
+              reference
+            )
+        );
+
+    }
+
+    private Outlet< E > newOutlet (
+      final Reference reference
+    ) {
+
+      final var registrar =
+        new Registration< E > ();
+
+      delegate.accept (
+        reference,
+        registrar
+      );
+
+      return
+        registrar.outlet;
+
+    }
+
+
+    private static final class Registration< E >
+      implements Registrar< E > {
+
+      Outlet< E > outlet =
+        empty ();
+
+      @Override
+      public void register (
+        final Outlet< E > outlet
+      ) {
+
+        this.outlet =
+          outlet;
+
+      }
+
+    }
+
+  }
+
+  private record Event< T >(Reference emitter, T emittance)
+    implements Substrates.Event< T > {
+
+    @Override
+    public < R > Event< R > map (
+      final Function< ? super T, ? extends R > func
+    ) {
+
+      return
+        new Event<> (
+          emitter,
+          func.apply (
+            emittance
+          )
+        );
+
+    }
+
+  }
+
+  /*
+   * A mutable event reused by a thread for every value it emits into a
+   * hub with carriers enabled, along with the event reused for whatever
+   * the carrier is mapped to. Outlets must not retain a carrier, or an
+   * event mapped from one, beyond the call in which it was accepted, and
+   * an event mapped from a carrier is only valid until it is mapped again.
+   */
+
+  private static final class Carrier< T >
+    implements Substrates.Event< T > {
+
+    private static final ThreadLocal< Carrier< Object > > CARRIERS =
+      ThreadLocal.withInitial (
+        Carrier::new
+      );
+
+    private Reference emitter;
+
+    private T emittance;
+
+    private Carrier< Object > mapped;
+
+    private boolean held;
+
+    @SuppressWarnings ( "unchecked" )
+    static < T > Carrier< T > acquire () {
+
+      final var carrier =
+        (Carrier< T >) CARRIERS.get ();
+
+      if ( carrier.held ) {
+        return null;
+      }
+
+      carrier.held =
+        true;
+
+      return
+        carrier;
+
+    }
+
+    Carrier< T > set (
+      final Reference emitter,
+      final T emittance
+    ) {
+
+      this.emitter =
+        emitter;
+
+      this.emittance =
+        emittance;
+
+      return
+        this;
+
+    }
+
+    // clears each carrier down the chain so none keeps a value reachable
+
+    void release () {
+
+      for ( Carrier< ? > carrier = this; carrier != null; carrier = carrier.mapped ) {
+
+        carrier.emitter =
+          null;
+
+        carrier.emittance =
+          null;
+
+      }
+
+      held =
+        false;
+
+    }
+
+    @Override
+    public Reference emitter () {
+
+      return
+        emitter;
+
+    }
+
+    @Override
+    public T emittance () {
+
+      return
+        emittance;
+
+    }
+
+    @Override
+    @SuppressWarnings ( "unchecked" )
+    public < R > Substrates.Event< R > map (
+      final Function< ? super T, ? extends R > func
     ) {
 
-      final Reference reference =
-        event.emitter ();
+      final var value =
+        func.apply (
+          emittance
+        );
 
-      final var outlet =
-        outlets.computeIfAbsent (
-          reference,
-          name ->
-            newOutlet (
-              reference
-            )
+      if ( mapped == null ) {
+
+        mapped =
+          new Carrier<> ();
+
+      }
+
+      return
+        (Carrier< R >) mapped.set (
+          emitter,
+          value
         );
 
-      if ( outlet != empty () ) {
+    }
 
-        outlet.accept (
-          event
+  }
+
+  /**
+   * An outlet that also accepts the values of a batch emitted by a single
+   * emitter at once, in place of an event per value. The list must not be
+   * retained beyond the call. Registered as any other outlet, it receives
+   * batches emitted through {@link Inlet#emitAll(List)}.
+   *
+   * @param <E> the class type of the emitted values
+   */
+
+  public interface BatchOutlet< E >
+    extends Outlet< E > {
+
+    /**
+     * Accepts the values of a batch emitted by the emitter.
+     *
+     * @param emitter the reference the batch was emitted for
+     * @param values  the values of the batch, in the order they were emitted
+     */
+
+    void accept (
+      Reference emitter,
+      List< ? extends E > values
+    );
+
+  }
+
+  /**
+   * An outlet that also accepts a long value without it being boxed
+   * or an event being allocated for it, when emitted through a {@link LongInlet}.
+   */
+
+  public interface LongOutlet
+    extends Outlet< Long > {
+
+    /**
+     * Accepts a value emitted by the emitter.
+     *
+     * @param emitter the reference the value was emitted for
+     * @param value   the value emitted
+     */
+
+    void accept (
+      Reference emitter,
+      long value
+    );
+
+  }
+
+  /**
+   * An outlet that also accepts a double value without it being boxed
+   * or an event being allocated for it, when emitted through a {@link DoubleInlet}.
+   */
+
+  public interface DoubleOutlet
+    extends Outlet< Double > {
+
+    /**
+     * Accepts a value emitted by the emitter.
+     *
+     * @param emitter the reference the value was emitted for
+     * @param value   the value emitted
+     */
+
+    void accept (
+      Reference emitter,
+      double value
+    );
+
+  }
+
+  /**
+   * Returns an inlet into the hub for the reference that can emit long values
+   * without boxing them.
+   *
+   * @param hub       a hub of this provider
+   * @param reference the reference the values are emitted for
+   * @throws IllegalArgumentException if the hub is not of this provider
+   */
+
+  public static LongInlet longInlet (
+    final Hub< Long > hub,
+    final Reference reference
+  ) {
+
+    if ( hub instanceof Memory< Long > memory ) {
+
+      return
+        new LongInlet (
+          memory,
+          reference
         );
 
-      }
+    }
+
+    throw
+      new IllegalArgumentException (
+        "Invalid Hub: " + hub
+      );
+
+  }
+
+  /**
+   * Returns an inlet into the hub for the reference that can emit double values
+   * without boxing them.
+   *
+   * @param hub       a hub of this provider
+   * @param reference the reference the values are emitted for
+   * @throws IllegalArgumentException if the hub is not of this provider
+   */
+
+  public static DoubleInlet doubleInlet (
+    final Hub< Double > hub,
+    final Reference reference
+  ) {
+
+    if ( hub instanceof Memory< Double > memory ) {
+
+      return
+        new DoubleInlet (
+          memory,
+          reference
+        );
 
     }
 
-    private Outlet< E > newOutlet (
+    throw
+      new IllegalArgumentException (
+        "Invalid Hub: " + hub
+      );
+
+  }
+
+  /**
+   * Returns the inlet into the hub for the reference, which can also emit values
+   * as a batch.
+   *
+   * @param hub       a hub of this provider
+   * @param reference the reference the values are emitted for
+   * @param <E>       the class type of the emitted values
+   * @throws IllegalArgumentException if the hub is not of this provider
+   */
+
+  public static < E > Inlet< E > inlet (
+    final Hub< E > hub,
+    final Reference reference
+  ) {
+
+    if ( hub instanceof Memory< E > memory ) {
+      return memory.inlet ( reference );
+    }
+
+    throw
+      new IllegalArgumentException (
+        "Invalid Hub: " + hub
+      );
+
+  }
+
+  /**
+   * An inlet into a hub of this provider that can also emit values as a batch.
+   * It holds the outlets resolved for its reference until the subscriptions of
+   * the hub change, so that emitting is a loop over an array.
+   *
+   * @param <E> the class type of the emitted values
+   */
+
+  public static class Inlet< E >
+    implements Substrates.Inlet< E > {
+
+    final Memory< E > memory;
+    final Reference   reference;
+
+    // immutable and so safely published through a plain field, with a racing
+    // emit at worst resolving again
+
+    private Resolution< E > resolution;
+
+    Inlet (
+      final Memory< E > memory,
       final Reference reference
     ) {
 
-      final var registrar =
-        new Registration< E > ();
+      this.memory =
+        memory;
 
-      delegate.accept (
-        reference,
-        registrar
-      );
+      this.reference =
+        reference;
+
+    }
+
+    Resolution< E > resolve () {
+
+      final var current =
+        resolution;
 
       return
-        registrar.outlet;
+        current != null && current.snapshot () == memory.entries ()
+        ? current
+        : ( resolution = memory.resolve ( reference ) );
 
     }
 
+    @Override
+    public void emit (
+      final E value
+    ) {
 
-    private static final class Registration< E >
-      implements Registrar< E > {
+      final var resolved =
+        resolve ();
 
-      Outlet< E > outlet =
-        empty ();
+      if ( resolved.outlets ().length == 0 ) {
+        return;
+      }
 
-      @Override
-      public void register (
-        final Outlet< E > outlet
-      ) {
+      if ( memory.carriers ) {
 
-        this.outlet =
-          outlet;
+        memory.carry (
+          resolved,
+          reference,
+          value
+        );
+
+      } else {
+
+        memory.dispatch (
+          resolved,
+          new Event<> (
+            reference,
+            value
+          )
+        );
 
       }
 
     }
 
-  }
-
-  private record Event< T >(Reference emitter, T emittance)
-    implements Substrates.Event< T > {
+    /**
+     * Emits the value supplied, only calling upon the supplier when some subscriber
+     * has registered an outlet for the reference. A subscription that registered no
+     * outlet for it no longer causes the supplier to be called.
+     *
+     * @param supplier the supplier of the value to be emitted
+     */
 
     @Override
-    public < R > Event< R > map (
-      final Function< ? super T, ? extends R > func
+    public void emit (
+      final Supplier< ? extends E > supplier
     ) {
 
-      return
-        new Event<> (
-          emitter,
-          func.apply (
-            emittance
+      final var resolved =
+        resolve ();
+
+      if ( resolved.outlets ().length == 0 ) {
+        return;
+      }
+
+      if ( memory.carriers ) {
+
+        memory.carry (
+          resolved,
+          reference,
+          supplier.get ()
+        );
+
+      } else {
+
+        memory.dispatch (
+          resolved,
+          new Event<> (
+            reference,
+            supplier.get ()
           )
         );
 
+      }
+
+    }
+
+    /**
+     * Emits the values as a batch, resolving the outlets once for the batch,
+     * with each batch outlet receiving the batch whole.
+     *
+     * @param values the values to be emitted, which must not be changed while emitting
+     */
+
+    public void emitAll (
+      final List< ? extends E > values
+    ) {
+
+      final var resolved =
+        resolve ();
+
+      if ( resolved.outlets ().length != 0 && !values.isEmpty () ) {
+
+        memory.dispatch (
+          resolved,
+          reference,
+          values
+        );
+
+      }
+
+    }
+
+    /**
+     * Emits the values supplied as a batch, only calling upon the supplier
+     * when some subscriber has registered an outlet for the reference.
+     *
+     * @param supplier the supplier of the values to be emitted
+     */
+
+    public void emitAll (
+      final Supplier< ? extends List< ? extends E > > supplier
+    ) {
+
+      final var resolved =
+        resolve ();
+
+      if ( resolved.outlets ().length != 0 ) {
+
+        final var values =
+          supplier.get ();
+
+        if ( !values.isEmpty () ) {
+
+          memory.dispatch (
+            resolved,
+            reference,
+            values
+          );
+
+        }
+
+      }
+
     }
 
   }
 
-  private record Inlet< E >(
-    Memory< ? super E > memory,
-    Reference reference
-  ) implements Substrates.Inlet< E > {
+  /**
+   * An inlet into a hub of this provider, obtained with {@link #longInlet(Hub, Reference)},
+   * that emits a long value to each {@link LongOutlet} as is, boxing it only once some
+   * other outlet is to receive it, within the carrier of the thread when carriers are enabled.
+   */
 
+  public static final class LongInlet
+    extends Inlet< Long > {
 
-    @Override
-    public void emit (
-      final E event
+    LongInlet (
+      final Memory< Long > memory,
+      final Reference reference
     ) {
 
-      memory.publish (
-        reference,
-        event
+      super (
+        memory,
+        reference
       );
 
     }
 
-    @Override
+    /**
+     * Emits the value without boxing it for the outlets that accept it as is.
+     *
+     * @param value the value to be emitted
+     */
+
     public void emit (
-      final Supplier< ? extends E > supplier
+      final long value
     ) {
 
-      memory.publish (
-        reference,
-        supplier
+      final var resolved =
+        resolve ();
+
+      final var outlets =
+        resolved.outlets ();
+
+      Substrates.Event< Long > event =
+        null;
+
+      Carrier< Long > carrier =
+        null;
+
+      try {
+
+        for ( var i = 0; i < outlets.length; i++ ) {
+
+          final var outlet =
+            outlets[i];
+
+          try {
+
+            if ( outlet instanceof LongOutlet primitive ) {
+
+              primitive.accept (
+                reference,
+                value
+              );
+
+            } else {
+
+              if ( event == null ) {
+
+                // the carrier of the thread, unless already in use further up its stack
+
+                carrier =
+                  memory.carriers
+                  ? Carrier.acquire ()
+                  : null;
+
+                event =
+                  carrier != null
+                  ? carrier.set ( reference, value )
+                  : new Event<> ( reference, value );
+
+              }
+
+              outlet.accept (
+                event
+              );
+
+            }
+
+          } catch (
+            final Throwable error
+          ) {
+
+            Memory.fail (
+              resolved,
+              i,
+              error
+            );
+
+          }
+
+        }
+
+      } finally {
+
+        if ( carrier != null ) {
+          carrier.release ();
+        }
+
+      }
+
+    }
+
+  }
+
+  /**
+   * An inlet into a hub of this provider, obtained with {@link #doubleInlet(Hub, Reference)},
+   * that emits a double value to each {@link DoubleOutlet} as is, boxing it only once some
+   * other outlet is to receive it, within the carrier of the thread when carriers are enabled.
+   */
+
+  public static final class DoubleInlet
+    extends Inlet< Double > {
+
+    DoubleInlet (
+      final Memory< Double > memory,
+      final Reference reference
+    ) {
+
+      super (
+        memory,
+        reference
       );
 
     }
 
+    /**
+     * Emits the value without boxing it for the outlets that accept it as is.
+     *
+     * @param value the value to be emitted
+     */
+
+    public void emit (
+      final double value
+    ) {
+
+      final var resolved =
+        resolve ();
+
+      final var outlets =
+        resolved.outlets ();
+
+      Substrates.Event< Double > event =
+        null;
+
+      Carrier< Double > carrier =
+        null;
+
+      try {
+
+        for ( var i = 0; i < outlets.length; i++ ) {
+
+          final var outlet =
+            outlets[i];
+
+          try {
+
+            if ( outlet instanceof DoubleOutlet primitive ) {
+
+              primitive.accept (
+                reference,
+                value
+              );
+
+            } else {
+
+              if ( event == null ) {
+
+                // the carrier of the thread, unless already in use further up its stack
+
+                carrier =
+                  memory.carriers
+                  ? Carrier.acquire ()
+                  : null;
+
+                event =
+                  carrier != null
+                  ? carrier.set ( reference, value )
+                  : new Event<> ( reference, value );
+
+              }
+
+              outlet.accept (
+                event
+              );
+
+            }
+
+          } catch (
+            final Throwable error
+          ) {
+
+            Memory.fail (
+              resolved,
+              i,
+              error
+            );
+
+          }
+
+        }
+
+      } finally {
+
+        if ( carrier != null ) {
+          carrier.release ();
+        }
+
+      }
+
+    }
+
   }
 
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates;
+
+import java.util.ArrayList;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A utility class for compiling glob like patterns into {@link Substrates.Name} predicates.
+ * <p>
+ * A pattern is a path whose segments are either literals, {@code *} matching exactly one
+ * segment, or {@code **} matching zero or more segments. The leading literal segments are
+ * interned when compiling so that a name is first tested against that subtree by identity,
+ * with the remaining segments then matched against its cached ancestry, all without
+ * rendering the name to a string or allocating.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class Matchers {
+
+  private static final String ONE = "*";
+  private static final String ANY = "**";
+
+  private Matchers () {}
+
+  static Matcher of (
+    final String pattern
+  ) {
+
+    requireNonNull (
+      pattern
+    );
+
+    Names.Name prefix =
+      null;
+
+    final var tokens =
+      new ArrayList< String > ();
+
+    var start =
+      0;
+
+    while ( start <= pattern.length () ) {
+
+      var end =
+        pattern.indexOf (
+          '.',
+          start
+        );
+
+      if ( end == -1 ) {
+        end = pattern.length ();
+      }
+
+      if ( end > start ) {
+
+        final var segment =
+          pattern.substring (
+            start,
+            end
+          );
+
+        if ( !tokens.isEmpty () || segment.equals ( ONE ) || segment.equals ( ANY ) ) {
+
+          tokens.add (
+            token (
+              segment
+            )
+          );
+
+        } else {
+
+          prefix =
+            prefix == null
+            ? Names.of ( segment )
+            : prefix.name ( segment );
+
+        }
+
+      }
+
+      start =
+        end + 1;
+
+    }
+
+    if ( prefix == null && tokens.isEmpty () ) {
+
+      throw
+        new IllegalArgumentException (
+          "Invalid Pattern Specification: " + pattern
+        );
+
+    }
+
+    return
+      new Matcher (
+        prefix,
+        tokens.toArray (
+          new String[0]
+        )
+      );
+
+  }
+
+  // wildcards are canonicalized so that they are told apart from literals by identity
+
+  private static String token (
+    final String segment
+  ) {
+
+    return
+      segment.equals ( ANY )
+      ? ANY
+      : segment.equals ( ONE ) ? ONE : segment;
+
+  }
+
+  // the cached hash of each string rules out most mismatches before their chars are compared
+
+  private static boolean literal (
+    final String token,
+    final Names.Name name
+  ) {
+
+    final var value =
+      name.value ();
+
+    return
+      token.hashCode () == value.hashCode ()
+        && token.equals ( value );
+
+  }
+
+  /**
+   * A compiled pattern.
+   */
+
+  static final class Matcher
+    implements Predicate< Substrates.Name > {
+
+    private final Names.Name prefix;
+    private final int        offset;
+    private final String[]   tokens;
+    private final int        min;
+    private final boolean    open;
+
+    private Matcher (
+      final Names.Name prefix,
+      final String[] tokens
+    ) {
+
+      this.prefix =
+        prefix;
+
+      this.tokens =
+        tokens;
+
+      offset =
+        prefix != null
+        ? prefix.depth ()
+        : 0;
+
+      var fixed =
+        0;
+
+      var any =
+        false;
+
+      for ( final var token : tokens ) {
+
+        if ( token == ANY ) {
+          any = true;
+        } else {
+          fixed++;
+        }
+
+      }
+
+      min =
+        offset + fixed;
+
+      open =
+        any;
+
+    }
+
+    @Override
+    public boolean test (
+      final Substrates.Name name
+    ) {
+
+      //noinspection CastToConcreteClass
+      if ( name instanceof Names.Name interned ) {
+        return test ( interned );
+      }
+
+      // a foreign name is only resolved, never interned, so one not yet interned cannot match
+
+      final var resolved =
+        Names.find (
+          name.toPath ()
+        );
+
+      return
+        resolved != null
+          && test ( resolved );
+
+    }
+
+    private boolean test (
+      final Names.Name name
+    ) {
+
+      final var depth =
+        name.depth ();
+
+      if ( open ? depth < min : depth != min ) {
+        return false;
+      }
+
+      if ( prefix != null && !name.isWithin ( prefix ) ) {
+        return false;
+      }
+
+      return
+        tokens.length == 0
+          || match ( name.ancestry () );
+
+    }
+
+    /*
+     * Matches the segments below the prefix against the tokens, with
+     * ANY backtracking as a '*' would over the characters of a glob.
+     */
+
+    private boolean match (
+      final Names.Name[] names
+    ) {
+
+      var i =
+        offset;
+
+      var t =
+        0;
+
+      var star =
+        -1;
+
+      var mark =
+        0;
+
+      while ( i < names.length ) {
+
+        final var token =
+          t < tokens.length
+          ? tokens[t]
+          : null;
+
+        if ( token == ANY ) {
+
+          star =
+            t++;
+
+          mark =
+            i;
+
+        } else if ( token != null && ( token == ONE || literal ( token, names[i] ) ) ) {
+
+          i++;
+          t++;
+
+        } else if ( star != -1 ) {
+
+          t =
+            star + 1;
+
+          i =
+            ++mark;
+
+        } else {
+
+          return
+            false;
+
+        }
+
+      }
+
+      while ( t < tokens.length && tokens[t] == ANY ) {
+        t++;
+      }
+
+      return
+        t == tokens.length;
+
+    }
+
+  }
+
+}
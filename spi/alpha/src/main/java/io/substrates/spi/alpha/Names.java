@@ -5,23 +5,48 @@
 package io.substrates.spi.alpha;
 
 import io.humainary.substrates.Substrates;
+import io.humainary.substrates.Substrates.Environment;
 
+import java.io.IOException;
+import java.io.Serial;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Member;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
-
+import java.util.stream.StreamSupport;
+
+import static io.substrates.spi.alpha.Dictionaries.ROOT;
+import static java.lang.Integer.getInteger;
+import static java.lang.Math.max;
+import static java.lang.System.getProperty;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.checkIndex;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
-import static java.util.regex.Pattern.compile;
 
 /**
  * @author wlouth
@@ -30,746 +55,3998 @@ import static java.util.regex.Pattern.compile;
 
 final class Names {
 
-  private static final char                              DOT     = '.';
-  private static final int                               INDEX   = DOT;
-  private static final Pattern                           PATTERN = compile ( "\\" + DOT );
-  private static final ConcurrentHashMap< String, Name > MAP     =
+  private static final char                                DOT      = '.';
+  private static final int                                 INDEX    = DOT;
+  private static final int                                 IDLE     = 0;
+  private static final int                                 QUEUED   = 1;
+  private static final int                                 HELD     = 2;
+  private static final int                                 MARKED   = 3;
+  private static final int                                 ARRAY    = 8;
+  private static final int                                 BITS     = 4;
+  private static final int                                 MASK     = ( 1 << BITS ) - 1;
+  private static final ConcurrentHashMap< String, Object > MAP      =
     new ConcurrentHashMap<> ( 1009 );
+  private static final ReferenceQueue< Name >              QUEUE    =
+    new ReferenceQueue<> ();
+  private static final AtomicInteger                       IDS      =
+    new AtomicInteger ();
+  private static final ConcurrentLinkedQueue< Integer >    FREE     =
+    new ConcurrentLinkedQueue<> ();
+  private static final Table< Object >                     REGISTRY =
+    new Table<> ();
+  private static final Name                                ROOTS    =
+    new Name ();
 
-  private static IllegalArgumentException illegalArgument (
-    final String path
-  ) {
+  // the id shared by every name that is not interned
 
-    return
-      new IllegalArgumentException (
-        "Invalid Path Specification: " + path
-      );
+  private static final int EPHEMERAL = -2;
 
-  }
+  // the value only refers to the name, never the class, so classes can still be unloaded
 
-  private static Name lookup (
-    final String path
-  ) {
+  private static final ClassValue< Name > CLASSES =
+    new ClassValue<> () {
 
-    final var name =
-      MAP.get (
-        path
-      );
+      @Override
+      protected Name computeValue (
+        final Class< ? > type
+      ) {
 
-    return
-      name != null ?
-      name :
-      parse (
-        path
-      );
+        return
+          lookup (
+            type.getName ()
+          );
 
-  }
+      }
 
-  private static Name parse (
-    final String path
-  ) {
+    };
 
-    final var name =
-      checkName (
-        parseOrNull (
-          path
-        ),
-        path
-      );
+  private static volatile Interning INTERNING =
+    new Interning (
+      Retention.STRONG,
+      null
+    );
 
-    MAP.put (
-      path,
-      name
+  private static final String RETENTION_PROPERTY  = "io.substrates.spi.alpha.names.retention";
+  private static final String CAPACITY_PROPERTY   = "io.substrates.spi.alpha.names.capacity";
+  private static final String DICTIONARY_PROPERTY = "io.substrates.spi.alpha.names.dictionary";
+  private static final int    CAPACITY_DEFAULT    = 16384;
+
+  // read as a string so that a value naming no retention can be rejected
+
+  private static final Variables.Variable< String > RETENTION =
+    Variables.of (
+      of ( RETENTION_PROPERTY ),
+      (String) null
     );
 
-    return
-      name;
+  private static final Variables.Variable< Integer > CAPACITY =
+    Variables.of (
+      of ( CAPACITY_PROPERTY ),
+      (Integer) CAPACITY_DEFAULT
+    );
 
-  }
+  private static final Variables.Variable< String > DICTIONARY_PATH =
+    Variables.of (
+      of ( DICTIONARY_PROPERTY ),
+      (String) null
+    );
 
-  private static Name parseOrNull (
-    final CharSequence path
-  ) {
+  private static volatile Dictionaries.Dictionary DICTIONARY;
 
-    final var closure =
-      new Closure ();
+  // names loaded from the dictionary are pinned to keep their ids stable
 
-    splitAsStream (
-      path
-    ).forEachOrdered (
+  private static Name[] PRELOADED;
 
-      part ->
-        addNameTo (
-          part,
-          closure
-        )
+  /*
+   * Read from the system properties directly rather than through
+   * Environments.SYSTEM, which boots the API and with it the provider,
+   * which in turn interns names while this class is still initializing.
+   * An invalid retention fails the initialization rather than being ignored.
+   */
 
+  static {
+
+    configure (
+      retention (
+        getProperty ( RETENTION_PROPERTY )
+      ),
+      getInteger (
+        CAPACITY_PROPERTY,
+        CAPACITY_DEFAULT
+      ),
+      getProperty (
+        DICTIONARY_PROPERTY
+      )
     );
 
-    return
-      closure.value;
-
   }
 
-  private static void addNameTo (
-    final String part,
-    final Closure closure
-  ) {
+  /**
+   * The retention applied to names as they are interned.
+   */
 
-    final var prefix =
-      closure.value;
+  enum Retention {
+
+    /**
+     * Names are retained for the lifetime of the JVM.
+     */
+
+    STRONG,
+
+    /**
+     * Names are retained only while referenced from outside the trie.
+     */
+
+    WEAK,
+
+    /**
+     * Names are retained while referenced from outside the trie, with the
+     * most recently used names also held, up to a capacity, by a CLOCK.
+     */
 
-    closure.value =
-      prefix == null ?
-      root ( part ) :
-      prefix.node ( part );
+    BOUNDED
 
   }
 
+  /**
+   * The order in which a traversal visits the names within a subtree.
+   */
 
-  private Names () {}
+  enum Traversal {
 
-  static Name of (
-    final Class< ? > cls
-  ) {
+    /**
+     * Every name is visited before the names beneath it, and each of its
+     * children's subtrees is visited in full before the next.
+     */
 
-    return
-      lookup (
-        cls.getName ()
-      );
+    DEPTH_FIRST,
+
+    /**
+     * Every name is visited before any name of greater depth.
+     */
+
+    BREADTH_FIRST
 
   }
 
-  static Name of (
-    final Member member
+  /**
+   * A summary of the interned names, taken in a single weakly consistent walk of
+   * the trie from its roots.
+   *
+   * @param ids      the number of ids allocated, counting those since released for reuse
+   * @param names    the number of names still live
+   * @param roots    the number of live names that are roots
+   * @param depth    the greatest depth of a live name
+   * @param segments the number of UTF-16 chars held by the segments of live names
+   * @param nodes    the number of child tables, arrays and nodes alike, holding names
+   * @param pages    the number of pages allocated by the registry of ids
+   * @param bytes    an estimate of the bytes retained by the names, their child tables
+   *                 and the registry, assuming compressed references
+   */
+
+  record Summary(
+    int ids,
+    int names,
+    int roots,
+    int depth,
+    long segments,
+    int nodes,
+    int pages,
+    long bytes
+  ) {}
+
+  /**
+   * Applies the retention, and for {@link Retention#BOUNDED} the capacity, configured
+   * within the environment to names interned from here on. Names already interned
+   * keep the retention they were interned with. A dictionary path within the
+   * environment attaches that dictionary, while its absence detaches any attached.
+   *
+   * @throws IllegalArgumentException if the retention names none of {@link Retention}
+   */
+
+  static void configure (
+    final Environment environment
   ) {
 
-    return
-      lookup (
-        member.getDeclaringClass ().getName ()
-      ).node (
-        member.getName ()
-      );
+    configure (
+      retention (
+        RETENTION.of ( environment )
+      ),
+      CAPACITY.of ( environment ),
+      DICTIONARY_PATH.of ( environment )
+    );
 
   }
 
-  private static Stream< String > splitAsStream (
-    final CharSequence name
+  private static synchronized void configure (
+    final Retention retention,
+    final int capacity,
+    final String path
   ) {
 
-    return
-      PATTERN.splitAsStream (
-        name
-      ).filter (
-        IS_NOT_EMPTY
+    final var previous =
+      INTERNING.clock;
+
+    INTERNING =
+      new Interning (
+        retention,
+        retention == Retention.BOUNDED
+        ? new Clock ( capacity )
+        : null
       );
 
-  }
+    // names held by the previous clock are released for the next to admit
 
-  private static final Predicate< String > IS_NOT_EMPTY = Predicate.not ( String::isEmpty );
+    if ( previous != null ) {
+      previous.close ();
+    }
 
-  private static < T > T getOrAdd (
-    final String path,
-    final ConcurrentHashMap< String, T > names,
-    final Function< ? super String, ? extends T > mapper
-  ) {
+    if ( path != null ) {
 
-    final var name =
-      names.get (
-        path
+      attach (
+        Path.of (
+          path
+        )
       );
 
-    return
-      name != null ?
-      name :
-      names.computeIfAbsent (
-        path,
-        mapper
-      );
+    } else {
+
+      detach ();
+
+    }
 
   }
 
-  static Name of (
-    final String path
+  /**
+   * Interns every name recorded in the dictionary at the path, under the id it was
+   * recorded with where that id is still free, then rewrites it to hold a record of
+   * each live name and records every name interned from here on. A dictionary that
+   * cannot be opened or read is reported and left unattached, while one whose file is
+   * locked by another writer is only read from.
+   */
+
+  static synchronized void attach (
+    final Path path
   ) {
 
-    checkPath (
-      path
-    );
+    final var current =
+      DICTIONARY;
 
-    return
-      isCompositePath (
-        path
-      ) ?
-      lookup (
-        path
-      ) :
-      root ( path );
+    if ( current != null && current.path ().equals ( path ) ) {
+      return;
+    }
 
-  }
+    final var pinned =
+      PRELOADED;
 
-  private static Name root (
-    final String path
-  ) {
+    Dictionaries.Dictionary dictionary = null;
 
-    return
-      getOrAdd (
-        path,
-        MAP,
-        Name::new
+    try {
+
+      dictionary =
+        Dictionaries.open (
+          path
+        );
+
+      final var preloaded =
+        preload (
+          dictionary.load ()
+        );
+
+      DICTIONARY =
+        dictionary;
+
+      PRELOADED =
+        preloaded;
+
+      // compacted once published so that a name interned in between is recorded by
+      // the rewrite, appended after it, or both, with the duplicate tolerated
+
+      dictionary.rewrite (
+        stream ( Traversal.BREADTH_FIRST )
+          .map ( Names::entry )
       );
 
+    } catch (
+      final IOException | RuntimeException error
+    ) {
+
+      error.printStackTrace ();
+
+      if ( dictionary != null ) {
+
+        // the dictionary attached beforehand, if any, remains so
+
+        DICTIONARY =
+          current;
+
+        PRELOADED =
+          pinned;
+
+        try {
+
+          dictionary.close ();
+
+        } catch (
+          final IOException ignored
+        ) {
+        }
+
+      }
+
+      return;
+
+    }
+
+    if ( current != null ) {
+
+      try {
+
+        current.close ();
+
+      } catch (
+        final IOException error
+      ) {
+
+        error.printStackTrace ();
+
+      }
+
+    }
+
   }
 
-  private static void checkPath (
-    final String path
+  private static Retention retention (
+    final String value
   ) {
 
-    if ( path.isEmpty () ) {
+    if ( value == null ) {
+
+      return
+        Retention.STRONG;
+
+    }
+
+    try {
+
+      return
+        Retention.valueOf (
+          value
+        );
+
+    } catch (
+      final IllegalArgumentException error
+    ) {
 
       throw
-        illegalArgument (
-          path
+        new IllegalArgumentException (
+          "Invalid Retention: " + value
         );
 
     }
 
   }
 
-  private static boolean isCompositePath (
-    final String path
-  ) {
+  static synchronized void detach () {
 
-    return
-      path.indexOf (
-        INDEX
-      ) != -1;
+    final var current =
+      DICTIONARY;
+
+    if ( current != null ) {
+
+      DICTIONARY =
+        null;
+
+      PRELOADED =
+        null;
+
+      try {
+
+        current.close ();
+
+      } catch (
+        final IOException error
+      ) {
+
+        error.printStackTrace ();
+
+      }
+
+    }
 
   }
 
-  private static < T extends Substrates.Name > T checkName (
-    final T name,
-    final String path
+  /*
+   * Records are replayed in the order they were written, so that a parent id resolves
+   * to the name most recently recorded under it, which is the parent even where an id
+   * has since been reused, and a record whose parent was never loaded is skipped. A
+   * recorded id is only honored when it lies beyond every id allocated before preloading,
+   * within the range reserved for this dictionary and not already handed to another
+   * name, otherwise the name, when not already interned, is given another. The ids of
+   * the range are ours alone until released, so only those never handed out are
+   * released here, as any handed out is released by whoever collects or discards it.
+   */
+
+  private static Name[] preload (
+    final List< Dictionaries.Entry > entries
   ) {
 
-    if ( name == null ) {
-      throw
-        illegalArgument (
-          path
-        );
+    final var loaded =
+      new Name[entries.size ()];
+
+    if ( loaded.length == 0 ) {
+      return loaded;
     }
 
-    return name;
+    var last = 0;
 
-  }
+    for ( final var entry : entries ) {
+      last = Math.max ( last, entry.id () );
+    }
 
-  /**
-   * The SPI implementation of {@link Substrates.Name}.
-   *
-   * @author wlouth
-   * @since 1.0
-   */
+    int free;
+    int reserved;
 
-  @SuppressWarnings ( "unchecked" )
-  static final class Name
-    implements Substrates.Name {
+    do {
 
-    @SuppressWarnings ( "rawtypes" )
-    private static final AtomicReferenceFieldUpdater< Name, ConcurrentHashMap > UPDATER =
-      AtomicReferenceFieldUpdater.newUpdater (
-        Name.class,
-        ConcurrentHashMap.class,
-        "cache"
-      );
+      free =
+        IDS.get ();
 
-    private final String                            val;
-    private final Name                              prefix;
-    volatile      ConcurrentHashMap< String, Name > cache;
-    private       String                            fqn;
+      reserved =
+        (int) Math.max ( free, Math.min ( last + 1L, (long) free + loaded.length ) );
 
-    private static ConcurrentHashMap< String, Name > createCache () {
+    } while ( !IDS.compareAndSet ( free, reserved ) );
 
-      return new ConcurrentHashMap<> ( 5 );
+    final var bound =
+      new HashMap< Integer, Name > ();
 
-    }
+    final var claimed =
+      new boolean[reserved - free];
 
-    private static < T > T foldTo (
-      final Name name,
-      final Function< ? super Name, ? extends T > initial,
-      final BiFunction< ? super T, ? super Name, T > accumulator
-    ) {
+    for ( var i = 0; i < loaded.length; i++ ) {
+
+      final var entry =
+        entries.get ( i );
 
       final var prefix =
-        name.prefix;
+        entry.isRoot ()
+        ? ROOTS
+        : bound.get ( entry.parent () );
 
-      return
-        prefix != null ?
-        accumulator.apply (
-          foldTo (
-            prefix,
-            initial,
-            accumulator
-          ),
-          name
-        ) :
-        initial.apply (
+      if ( prefix == null ) {
+        continue;
+      }
+
+      final var id =
+        entry.id ();
+
+      final var segment =
+        entry.segment ();
+
+      var name =
+        prefix.child (
+          segment
+        );
+
+      if ( name == null ) {
+
+        final var claim =
+          id >= free && id < reserved && !claimed[id - free];
+
+        if ( claim ) {
+          claimed[id - free] = true;
+        }
+
+        name =
+          prefix.add (
+            segment,
+            claim ? id : allocate ()
+          );
+
+      }
+
+      bound.put (
+        id,
+        name
+      );
+
+      loaded[i] =
+        name;
+
+    }
+
+    for ( var id = free; id < reserved; id++ ) {
+
+      if ( !claimed[id - free] ) {
+        release ( id );
+      }
+
+    }
+
+    return
+      loaded;
+
+  }
+
+  private static Dictionaries.Entry entry (
+    final Name name
+  ) {
+
+    final var prefix =
+      name.prefix;
+
+    return
+      new Dictionaries.Entry (
+        name.id,
+        prefix != null ? prefix.id : ROOT,
+        name.val
+      );
+
+  }
+
+  private static void record (
+    final Dictionaries.Dictionary dictionary,
+    final Name name
+  ) {
+
+    final var prefix =
+      name.prefix;
+
+    dictionary.append (
+      name.id,
+      prefix != null ? prefix.id : ROOT,
+      name.bytes ()
+    );
+
+  }
+
+  private static IllegalArgumentException illegalArgument (
+    final String path
+  ) {
+
+    return
+      new IllegalArgumentException (
+        "Invalid Path Specification: " + path
+      );
+
+  }
+
+  private static Name lookup (
+    final String path
+  ) {
+
+    final var name =
+      deref (
+        MAP.get (
+          path
+        )
+      );
+
+    return
+      name != null ?
+      touch ( name ) :
+      parse (
+        path
+      );
+
+  }
+
+  private static Name parse (
+    final String path
+  ) {
+
+    final var name =
+      checkName (
+        parseOrNull (
+          path
+        ),
+        path
+      );
+
+    MAP.put (
+      path,
+      INTERNING.entry (
+        name,
+        null,
+        path
+      )
+    );
+
+    return
+      name;
+
+  }
+
+  private static Name parseOrNull (
+    final String path
+  ) {
+
+    return
+      scan (
+        null,
+        path
+      );
+
+  }
+
+  /*
+   * Walks the trie segment by segment in a single pass over the path,
+   * skipping empty segments, starting from the given prefix. A null
+   * prefix resolves the first segment as a root. Returns null when the
+   * path does not contain a single non-empty segment.
+   */
+
+  private static Name scan (
+    final Name prefix,
+    final String path
+  ) {
+
+    final var length =
+      path.length ();
+
+    var name =
+      prefix;
+
+    var start =
+      0;
+
+    while ( start < length ) {
+
+      var end =
+        path.indexOf (
+          INDEX,
+          start
+        );
+
+      if ( end == -1 ) {
+        end = length;
+      }
+
+      if ( end > start ) {
+
+        name =
+          name == null
+          ? root ( path, start, end )
+          : name.node ( path, start, end );
+
+      }
+
+      start =
+        end + 1;
+
+    }
+
+    return
+      name != prefix
+      ? name
+      : null;
+
+  }
+
+  private static String segment (
+    final String path,
+    final int start,
+    final int end
+  ) {
+
+    return
+      start == 0 && end == path.length ()
+      ? path
+      : path.substring ( start, end );
+
+  }
+
+
+  /*
+   * Allocates the id of a name being interned, reusing that of a name since
+   * collected where there is one, so that ids stay dense in the live names
+   * rather than growing with every name ever interned.
+   */
+
+  private static int allocate () {
+
+    final var free =
+      FREE.poll ();
+
+    if ( free != null ) {
+      return free;
+    }
+
+    for ( ; ; ) {
+
+      final var id =
+        IDS.get ();
+
+      if ( id == Integer.MAX_VALUE ) {
+
+        throw
+          new IllegalStateException (
+            "Name Ids Exhausted"
+          );
+
+      }
+
+      if ( IDS.compareAndSet ( id, id + 1 ) ) {
+        return id;
+      }
+
+    }
+
+  }
+
+  // only called once the id has been cleared from the registry
+
+  private static void release (
+    final int id
+  ) {
+
+    FREE.offer (
+      id
+    );
+
+  }
+
+  private Names () {}
+
+  /**
+   * Returns the interned name with the specified id or null if no such
+   * name exists or, when not strongly retained, it has since been collected,
+   * after which the id may be allocated to another name.
+   */
+
+  static Name of (
+    final int id
+  ) {
+
+    return
+      deref (
+        REGISTRY.get (
+          id
+        )
+      );
+
+  }
+
+  /**
+   * Returns the number of ids allocated so far, which bounds every id
+   * (exclusive) and so the size of any id indexed table.
+   */
+
+  static int count () {
+
+    return
+      IDS.get ();
+
+  }
+
+  /**
+   * Streams every live interned name by walking the trie from its roots depth first.
+   * The stream is weakly consistent: it never blocks interning and may or may not
+   * include names interned while it runs.
+   */
+
+  static Stream< Name > stream () {
+
+    return
+      stream (
+        Traversal.DEPTH_FIRST
+      );
+
+  }
+
+  /**
+   * Streams every live interned name by walking the trie from its roots in the
+   * given order. The stream is weakly consistent, as with {@link #stream()}.
+   */
+
+  static Stream< Name > stream (
+    final Traversal traversal
+  ) {
+
+    return
+      ROOTS
+        .stream ( traversal )
+        .skip ( 1 );
+
+  }
+
+  static Summary summary () {
+
+    final var census =
+      new Census ();
+
+    final var pending =
+      new ArrayDeque< Name > ();
+
+    census.visit (
+      ROOTS,
+      pending
+    );
+
+    for ( var name = pending.poll (); name != null; name = pending.poll () ) {
+
+      census.names++;
+
+      if ( name.depth == 1 ) {
+        census.roots++;
+      }
+
+      census.depth =
+        max (
+          census.depth,
+          name.depth
+        );
+
+      census.segments +=
+        name.val.length ();
+
+      census.visit (
+        name,
+        pending
+      );
+
+    }
+
+    final var pages =
+      REGISTRY.pages ();
+
+    return
+      new Summary (
+        count (),
+        census.names,
+        census.roots,
+        census.depth,
+        census.segments,
+        census.nodes,
+        pages,
+        census.bytes + (long) pages * Census.PAGE
+      );
+
+  }
+
+  /*
+   * Tallies the names reached from the roots and the child tables holding them,
+   * with the bytes retained estimated from the shallow sizes of each, assuming
+   * compressed references and segments of Latin-1 chars.
+   */
+
+  private static final class Census {
+
+    private static final int  NAME  = 104;
+    private static final int  REF   = 40;
+    private static final int  ARRAY = 16;
+    private static final int  SLOT  = 4;
+    private static final long PAGE  = 2L * ARRAY + (long) SLOT * Table.SIZE;
+
+    int  names;
+    int  roots;
+    int  depth;
+    long segments;
+    int  nodes;
+    long bytes;
+
+    void visit (
+      final Name name,
+      final ArrayDeque< Name > pending
+    ) {
+
+      final var children =
+        name.children;
+
+      if ( name != ROOTS ) {
+
+        bytes +=
+          NAME + name.val.length ();
+
+      }
+
+      tables (
+        children
+      );
+
+      Name.children (
+        children,
+        pending
+      );
+
+    }
+
+    private void tables (
+      final Object cell
+    ) {
+
+      if ( cell instanceof AtomicReferenceArray< ? > node ) {
+
+        nodes++;
+
+        bytes +=
+          2L * ARRAY + (long) SLOT * node.length ();
+
+        for ( var i = 0; i < node.length (); i++ ) {
+
+          tables (
+            node.get ( i )
+          );
+
+        }
+
+      } else if ( cell instanceof Object[] entries ) {
+
+        nodes++;
+
+        bytes +=
+          ARRAY + (long) SLOT * entries.length;
+
+        for ( final var entry : entries ) {
+
+          tables (
+            entry
+          );
+
+        }
+
+      } else if ( cell instanceof Ref ) {
+
+        bytes +=
+          REF;
+
+      }
+
+    }
+
+  }
+
+  static Name of (
+    final Class< ? > cls
+  ) {
+
+    return
+      CLASSES.get (
+        cls
+      );
+
+  }
+
+  static Name of (
+    final Member member
+  ) {
+
+    return
+      CLASSES.get (
+        member.getDeclaringClass ()
+      ).node (
+        member.getName ()
+      );
+
+  }
+
+  private static String key (
+    final Object entry
+  ) {
+
+    return
+      entry instanceof Ref ref
+      ? ref.key
+      : ( (Name) entry ).val;
+
+  }
+
+  private static int hash (
+    final Object entry
+  ) {
+
+    return
+      key ( entry ).hashCode ();
+
+  }
+
+  /*
+   * Hashes a region of the path exactly as String.hashCode would
+   * hash the segment, without materializing the segment.
+   */
+
+  private static int hash (
+    final CharSequence path,
+    final int start,
+    final int end
+  ) {
+
+    var hash = 0;
+
+    for ( var i = start; i < end; i++ ) {
+
+      hash =
+        31 * hash + path.charAt ( i );
+
+    }
+
+    return
+      hash;
+
+  }
+
+  /*
+   * Hashes a UTF-8 encoded region exactly as String.hashCode would hash
+   * its decoding, returning -1 when the region is not well-formed so that
+   * the caller can fall back to a decoder that substitutes malformed input.
+   */
+
+  private static long hash (
+    final ByteBuffer path,
+    final int start,
+    final int end
+  ) {
+
+    var hash = 0;
+
+    var i = start;
+
+    while ( i < end ) {
+
+      final int lead =
+        path.get ( i );
+
+      if ( lead >= 0 ) {
+
+        hash =
+          31 * hash + lead;
+
+        i++;
+
+        continue;
+
+      }
+
+      final int trail;
+
+      var point = 0;
+
+      if ( ( lead & 0xE0 ) == 0xC0 ) {
+        trail = 1;
+        point = lead & 0x1F;
+      } else if ( ( lead & 0xF0 ) == 0xE0 ) {
+        trail = 2;
+        point = lead & 0x0F;
+      } else if ( ( lead & 0xF8 ) == 0xF0 ) {
+        trail = 3;
+        point = lead & 0x07;
+      } else {
+        return -1;
+      }
+
+      if ( i + trail >= end ) {
+        return -1;
+      }
+
+      for ( var k = 1; k <= trail; k++ ) {
+
+        final int next =
+          path.get ( i + k );
+
+        if ( ( next & 0xC0 ) != 0x80 ) {
+          return -1;
+        }
+
+        point =
+          point << 6 | next & 0x3F;
+
+      }
+
+      // overlong forms, surrogates and out of range points are malformed
+
+      if ( point < ( trail == 1 ? 0x80 : trail == 2 ? 0x800 : 0x10000 )
+        || point > Character.MAX_CODE_POINT
+        || point >= Character.MIN_SURROGATE && point <= Character.MAX_SURROGATE ) {
+        return -1;
+      }
+
+      if ( trail == 3 ) {
+
+        hash =
+          31 * hash + Character.highSurrogate ( point );
+
+        hash =
+          31 * hash + Character.lowSurrogate ( point );
+
+      } else {
+
+        hash =
+          31 * hash + point;
+
+      }
+
+      i +=
+        trail + 1;
+
+    }
+
+    return
+      hash & 0xFFFFFFFFL;
+
+  }
+
+  /*
+   * Matches an entry against a region of a String, a CharSequence or
+   * a well-formed UTF-8 encoded ByteBuffer, the last compared with the
+   * cached encoding of the segment, which being canonical is unique.
+   */
+
+  private static boolean matches (
+    final Object entry,
+    final int hash,
+    final Object path,
+    final int start,
+    final int end
+  ) {
+
+    final var key =
+      key (
+        entry
+      );
+
+    final var length =
+      end - start;
+
+    if ( path instanceof String string ) {
+
+      return
+        key.length () == length
+          && key.hashCode () == hash
+          && key.regionMatches ( 0, string, start, length );
+
+    }
+
+    if ( key.hashCode () != hash ) {
+      return false;
+    }
+
+    if ( path instanceof ByteBuffer buffer ) {
+
+      final var name =
+        deref (
+          entry
+        );
+
+      if ( name == null ) {
+        return false;
+      }
+
+      final var bytes =
+        name.bytes ();
+
+      if ( bytes.length != length ) {
+        return false;
+      }
+
+      for ( var i = 0; i < length; i++ ) {
+        if ( bytes[i] != buffer.get ( start + i ) ) return false;
+      }
+
+      return
+        true;
+
+    }
+
+    final var sequence =
+      (CharSequence) path;
+
+    if ( key.length () != length ) {
+      return false;
+    }
+
+    for ( var i = 0; i < length; i++ ) {
+      if ( key.charAt ( i ) != sequence.charAt ( start + i ) ) return false;
+    }
+
+    return
+      true;
+
+  }
+
+  /*
+   * Binary searches entries ordered by hash, returning the index of the
+   * matching entry or, as with Arrays.binarySearch, -(insertion point) - 1.
+   */
+
+  private static int search (
+    final Object[] entries,
+    final int hash,
+    final Object path,
+    final int start,
+    final int end
+  ) {
+
+    var low =
+      0;
+
+    var high =
+      entries.length - 1;
+
+    while ( low <= high ) {
+
+      final var mid =
+        ( low + high ) >>> 1;
+
+      final var value =
+        hash (
+          entries[mid]
+        );
+
+      if ( value < hash ) {
+
+        low =
+          mid + 1;
+
+      } else if ( value > hash ) {
+
+        high =
+          mid - 1;
+
+      } else {
+
+        for ( var i = mid; i >= 0 && hash ( entries[i] ) == hash; i-- ) {
+          if ( matches ( entries[i], hash, path, start, end ) ) return i;
+        }
+
+        for ( var i = mid + 1; i < entries.length && hash ( entries[i] ) == hash; i++ ) {
+          if ( matches ( entries[i], hash, path, start, end ) ) return i;
+        }
+
+        return
+          -mid - 1;
+
+      }
+
+    }
+
+    return
+      -low - 1;
+
+  }
+
+  private static Object[] insert (
+    final Object[] entries,
+    final int index,
+    final Object entry
+  ) {
+
+    final var result =
+      new Object[entries.length + 1];
+
+    System.arraycopy ( entries, 0, result, 0, index );
+    System.arraycopy ( entries, index, result, index + 1, entries.length - index );
+
+    result[index] =
+      entry;
+
+    return
+      result;
+
+  }
+
+  private static Object[] replace (
+    final Object[] entries,
+    final int index,
+    final Object entry
+  ) {
+
+    final var result =
+      entries.clone ();
+
+    result[index] =
+      entry;
+
+    return
+      result;
+
+  }
+
+  private static Object delete (
+    final Object[] entries,
+    final int index
+  ) {
+
+    if ( entries.length == 2 ) {
+      return entries[1 - index];
+    }
+
+    final var result =
+      new Object[entries.length - 1];
+
+    System.arraycopy ( entries, 0, result, 0, index );
+    System.arraycopy ( entries, index + 1, result, index, result.length - index );
+
+    return
+      result;
+
+  }
+
+  private static Object[] pair (
+    final Object entry,
+    final Object other
+  ) {
+
+    return
+      hash ( entry ) <= hash ( other )
+      ? new Object[] {entry, other}
+      : new Object[] {other, entry};
+
+  }
+
+  private static Object grow (
+    final Object[] entries,
+    final Object entry,
+    final int shift
+  ) {
+
+    final var key =
+      key (
+        entry
+      );
+
+    return
+      entries.length < ARRAY || shift >= Integer.SIZE
+      ? insert ( entries, -search ( entries, key.hashCode (), key, 0, key.length () ) - 1, entry )
+      : split ( entries, entry, shift );
+
+  }
+
+  /*
+   * Spreads the entries of a full array over a new node indexed by the
+   * bits of the hash at the shift, all before the node is published.
+   */
+
+  private static AtomicReferenceArray< Object > split (
+    final Object[] entries,
+    final Object entry,
+    final int shift
+  ) {
+
+    final var node =
+      new AtomicReferenceArray< Object > (
+        MASK + 1
+      );
+
+    for ( final var e : entries ) {
+
+      place (
+        node,
+        e,
+        shift
+      );
+
+    }
+
+    place (
+      node,
+      entry,
+      shift
+    );
+
+    return
+      node;
+
+  }
+
+  @SuppressWarnings ( "unchecked" )
+  private static void place (
+    final AtomicReferenceArray< Object > node,
+    final Object entry,
+    final int shift
+  ) {
+
+    final var index =
+      ( hash ( entry ) >>> shift ) & MASK;
+
+    final var cell =
+      node.get (
+        index
+      );
+
+    if ( cell instanceof AtomicReferenceArray< ? > nested ) {
+
+      place (
+        (AtomicReferenceArray< Object >) nested,
+        entry,
+        shift + BITS
+      );
+
+    } else {
+
+      node.set (
+        index,
+        cell == null
+        ? entry
+        : cell instanceof Object[] entries
+          ? grow ( entries, entry, shift + BITS )
+          : pair ( cell, entry )
+      );
+
+    }
+
+  }
+
+  private static Name deref (
+    final Object entry
+  ) {
+
+    return
+      entry instanceof Ref ref
+      ? ref.get ()
+      : (Name) entry;
+
+  }
+
+  private static Name touch (
+    final Name name
+  ) {
+
+    final var clock =
+      INTERNING.clock;
+
+    if ( clock != null ) {
+
+      clock.touch (
+        name
+      );
+
+    }
+
+    return
+      name;
+
+  }
+
+  private static void expunge () {
+
+    Ref ref;
+
+    while (
+      ( ref = (Ref) QUEUE.poll () ) != null
+    ) {
+
+      ref.expunge ();
+
+    }
+
+  }
+
+  static Name of (
+    final String path
+  ) {
+
+    checkPath (
+      path
+    );
+
+    return
+      isCompositePath (
+        path
+      ) ?
+      lookup (
+        path
+      ) :
+      root ( path );
+
+  }
+
+  /**
+   * Returns the name with the path held by the character sequence, resolving
+   * an existing name through the trie without materializing a string.
+   */
+
+  static Name of (
+    final CharSequence path
+  ) {
+
+    if ( path instanceof String string ) {
+      return of ( string );
+    }
+
+    final var name =
+      find (
+        path
+      );
+
+    return
+      name != null
+      ? name
+      : of ( path.toString () );
+
+  }
+
+  /**
+   * Returns the name with the path encoded as UTF-8 between the position and
+   * limit of the buffer, resolving an existing name through the trie without
+   * decoding it. The position of the buffer is left unchanged.
+   */
+
+  static Name of (
+    final ByteBuffer path
+  ) {
+
+    final var name =
+      find (
+        path
+      );
+
+    return
+      name != null
+      ? name
+      : of ( UTF_8.decode ( path.duplicate () ).toString () );
+
+  }
+
+  /**
+   * Interns the paths in bulk, returning their names in the same order.
+   * <p>
+   * The paths are sorted so that those sharing a prefix are adjacent and then
+   * interned in parallel across ranges of the sorted paths, with each path only
+   * resolving the segments beyond those it shares with the one before it.
+   *
+   * @throws IllegalArgumentException if a path does not contain a single non-empty segment
+   */
+
+  static List< Name > of (
+    final Collection< String > paths
+  ) {
+
+    final var sorted =
+      paths.toArray (
+        String[]::new
+      );
+
+    Arrays.parallelSort (
+      sorted
+    );
+
+    ForkJoinPool
+      .commonPool ()
+      .invoke (
+        new Bulk (
+          sorted,
+          0,
+          sorted.length
+        )
+      );
+
+    // each composite path now resolves with a single map lookup
+
+    final var result =
+      new ArrayList< Name > (
+        sorted.length
+      );
+
+    for ( final var path : paths ) {
+
+      result.add (
+        of (
+          path
+        )
+      );
+
+    }
+
+    return
+      result;
+
+  }
+
+  /**
+   * Returns the interned name with the path, or null should any of its segments
+   * not be interned, walking the trie over existing names only so that nothing
+   * is ever interned by the lookup.
+   */
+
+  static Name find (
+    final CharSequence path
+  ) {
+
+    final var length =
+      path.length ();
+
+    var name =
+      ROOTS;
+
+    var start =
+      0;
+
+    while ( start < length ) {
+
+      var end =
+        start;
+
+      while ( end < length && path.charAt ( end ) != DOT ) {
+        end++;
+      }
+
+      if ( end > start ) {
+
+        name =
+          name.child (
+            hash ( path, start, end ),
+            path,
+            start,
+            end
+          );
+
+        if ( name == null ) {
+          return null;
+        }
+
+      }
+
+      start =
+        end + 1;
+
+    }
+
+    return
+      name != ROOTS
+      ? touch ( name )
+      : null;
+
+  }
+
+  private static Name find (
+    final ByteBuffer path
+  ) {
+
+    final var limit =
+      path.limit ();
+
+    var name =
+      ROOTS;
+
+    var start =
+      path.position ();
+
+    while ( start < limit ) {
+
+      var end =
+        start;
+
+      // the separator never occurs within a multibyte sequence
+
+      while ( end < limit && path.get ( end ) != DOT ) {
+        end++;
+      }
+
+      if ( end > start ) {
+
+        final var hash =
+          hash (
+            path,
+            start,
+            end
+          );
+
+        if ( hash == -1 ) {
+          return null;
+        }
+
+        name =
+          name.child (
+            (int) hash,
+            path,
+            start,
+            end
+          );
+
+        if ( name == null ) {
+          return null;
+        }
+
+      }
+
+      start =
+        end + 1;
+
+    }
+
+    return
+      name != ROOTS
+      ? touch ( name )
+      : null;
+
+  }
+
+  private static Name root (
+    final String path
+  ) {
+
+    return
+      ROOTS.node (
+        path
+      );
+
+  }
+
+  private static Name root (
+    final String path,
+    final int start,
+    final int end
+  ) {
+
+    return
+      ROOTS.node (
+        path,
+        start,
+        end
+      );
+
+  }
+
+  private static void checkPath (
+    final String path
+  ) {
+
+    if ( path.isEmpty () ) {
+
+      throw
+        illegalArgument (
+          path
+        );
+
+    }
+
+  }
+
+  private static boolean isCompositePath (
+    final String path
+  ) {
+
+    return
+      path.indexOf (
+        INDEX
+      ) != -1;
+
+  }
+
+  private static < T extends Substrates.Name > T checkName (
+    final T name,
+    final String path
+  ) {
+
+    if ( name == null ) {
+      throw
+        illegalArgument (
+          path
+        );
+    }
+
+    return name;
+
+  }
+
+  /**
+   * The SPI implementation of {@link Substrates.Name}.
+   *
+   * @author wlouth
+   * @since 1.0
+   */
+
+  @SuppressWarnings ( "unchecked" )
+  static final class Name
+    implements Substrates.Name {
+
+    private static final AtomicReferenceFieldUpdater< Name, Object > CHILDREN =
+      AtomicReferenceFieldUpdater.newUpdater (
+        Name.class,
+        Object.class,
+        "children"
+      );
+
+    private static final AtomicIntegerFieldUpdater< Name > MARKS =
+      AtomicIntegerFieldUpdater.newUpdater (
+        Name.class,
+        "mark"
+      );
+
+    private final String    val;
+    private final Name      prefix;
+    private final int       id;
+    private final int       depth;
+    private final int       hash;
+    private       String    fqn;
+    private       Rendering renderings;
+    private       Name[]    ancestry;
+    private       byte[]    bytes;
+    private       byte[]    pathBytes;
+
+    /*
+     * The children are held adaptively: a lone child is held directly, up to
+     * ARRAY children in an array ordered by hash, with a node of 2^BITS cells
+     * indexed by successive bits of the hash splitting off thereafter. Every
+     * change is a single CAS of the field or of a node cell, and a node once
+     * published is never replaced, so lookups never block or allocate.
+     */
+
+    volatile Object children;
+
+    /*
+     * The state of the name within the clock of a bounded retention,
+     * only ever changed by CAS once the name has been queued.
+     */
+
+    volatile int mark;
+
+    /*
+     * The sentinel under which every root is held.
+     */
+
+    private Name () {
+
+      prefix =
+        null;
+
+      val =
+        "";
+
+      id =
+        -1;
+
+      depth =
+        0;
+
+      hash =
+        0;
+
+    }
+
+    private Name (
+      final String value,
+      final int id
+    ) {
+
+      prefix =
+        null;
+
+      val =
+        value;
+
+      this.id =
+        id;
+
+      depth =
+        1;
+
+      hash =
+        value.hashCode ();
+
+    }
+
+    private Name (
+      final Name prefix,
+      final String value,
+      final int id
+    ) {
+
+      this.prefix =
+        prefix;
+
+      val =
+        value;
+
+      this.id =
+        id;
+
+      depth =
+        prefix.depth + 1;
+
+      hash =
+        31 * prefix.hash + value.hashCode ();
+
+    }
+
+    /**
+     * Returns the dense id allocated to this name when it was interned,
+     * which is negative for an ephemeral name.
+     */
+
+    int id () {
+
+      return
+        id;
+
+    }
+
+    Name left () {
+
+      return
+        prefix;
+
+    }
+
+    /**
+     * Returns the number of segments in this name, with a root having a depth of one.
+     */
+
+    int depth () {
+
+      return
+        depth;
+
+    }
+
+    /**
+     * Returns the ancestor of this name at the specified depth, which is this
+     * name itself when the depth is its own.
+     *
+     * @throws IndexOutOfBoundsException if the depth is less than one or greater than that of this name
+     */
+
+    Name ancestor (
+      final int depth
+    ) {
+
+      return
+        depth == this.depth
+        ? this
+        : ancestry ()[checkIndex ( depth - 1, this.depth )];
+
+    }
+
+    /**
+     * Returns true if this name is the specified name or lies within the subtree it roots.
+     */
+
+    boolean isWithin (
+      final Substrates.Name name
+    ) {
+
+      //noinspection CastToConcreteClass
+      if ( name instanceof Name other ) {
+
+        final var at =
+          other.depth;
+
+        return
+          at == depth
+          ? equals ( other )
+          : at < depth && ancestry ()[at - 1].equals ( other );
+
+      }
+
+      return
+        false;
+
+    }
+
+    /*
+     * The names from the root down to and including this name, built on
+     * first use. The array is immutable once built so a racing rebuild
+     * is harmless.
+     */
+
+    Name[] ancestry () {
+
+      final var result =
+        ancestry;
+
+      return
+        result != null
+        ? result
+        : ( ancestry = buildAncestry () );
+
+    }
+
+    private Name[] buildAncestry () {
+
+      final var result =
+        new Name[depth];
+
+      var name =
+        this;
+
+      for ( var i = depth - 1; i >= 0; i-- ) {
+
+        result[i] =
+          name;
+
+        name =
+          name.prefix;
+
+      }
+
+      return
+        result;
+
+    }
+
+    private String path (
+      final char separator
+    ) {
+
+      var length =
+        depth - 1;
+
+      for ( var name = this; name != null; name = name.prefix ) {
+
+        length +=
+          name.val.length ();
+
+      }
+
+      final var chars =
+        new char[length];
+
+      var end =
+        length;
+
+      for ( var name = this; name != null; name = name.prefix ) {
+
+        final var value =
+          name.val;
+
+        final var start =
+          end - value.length ();
+
+        value.getChars (
+          0,
+          value.length (),
+          chars,
+          start
+        );
+
+        if ( start > 0 ) {
+
+          chars[start - 1] =
+            separator;
+
+        }
+
+        end =
+          start - 1;
+
+      }
+
+      return
+        new String (
+          chars
+        );
+
+    }
+
+    @Override
+    public String toString () {
+
+      return
+        toPath ();
+
+    }
+
+    /**
+     * Returns the UTF-8 encoding of the segment of this name, cached on first use.
+     * The array is shared and must not be modified.
+     */
+
+    byte[] bytes () {
+
+      final var result =
+        bytes;
+
+      return
+        result != null
+        ? result
+        : ( bytes = val.getBytes ( UTF_8 ) );
+
+    }
+
+    /**
+     * Returns the UTF-8 encoding of the path of this name, cached on first use.
+     * The array is shared and must not be modified.
+     */
+
+    byte[] pathBytes () {
+
+      final var result =
+        pathBytes;
+
+      return
+        result != null
+        ? result
+        : ( pathBytes = encodePath () );
+
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the path of this name into the buffer at its position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer has insufficient space remaining
+     */
+
+    ByteBuffer writeTo (
+      final ByteBuffer buffer
+    ) {
+
+      return
+        buffer.put (
+          pathBytes ()
+        );
+
+    }
+
+    private byte[] encodePath () {
+
+      if ( prefix == null ) {
+        return bytes ();
+      }
+
+      var length =
+        depth - 1;
+
+      for ( var name = this; name != null; name = name.prefix ) {
+
+        length +=
+          name.bytes ().length;
+
+      }
+
+      final var result =
+        new byte[length];
+
+      var end =
+        length;
+
+      for ( var name = this; name != null; name = name.prefix ) {
+
+        final var segment =
+          name.bytes ();
+
+        final var start =
+          end - segment.length;
+
+        System.arraycopy (
+          segment,
+          0,
+          result,
+          start,
+          segment.length
+        );
+
+        if ( start > 0 ) {
+
+          result[start - 1] =
+            DOT;
+
+        }
+
+        end =
+          start - 1;
+
+      }
+
+      return
+        result;
+
+    }
+
+    Name node (
+      final String single
+    ) {
+
+      if ( id == EPHEMERAL ) {
+        return new Name ( this, single, EPHEMERAL );
+      }
+
+      final var length =
+        single.length ();
+
+      // the hash cached by the string equals that of the region
+
+      final var hash =
+        single.hashCode ();
+
+      final var child =
+        child (
+          hash,
+          single,
+          0,
+          length
+        );
+
+      return
+        child != null
+        ? touch ( child )
+        : add ( single, 0, length, hash, allocate () );
+
+    }
+
+    Name node (
+      final String path,
+      final int start,
+      final int end
+    ) {
+
+      if ( id == EPHEMERAL ) {
+        return new Name ( this, segment ( path, start, end ), EPHEMERAL );
+      }
+
+      // a lookup fast path along a single-child chain, where the lone child is matched
+      // without hashing the segment; chains are not path-compressed, as every prefix
+      // is a canonical name of its own, with an id, and so remains a node of the trie
+
+      final var cell =
+        children;
+
+      if ( cell instanceof Name || cell instanceof Ref ) {
+
+        final var key =
+          key (
+            cell
+          );
+
+        final var length =
+          end - start;
+
+        if ( key.length () == length && key.regionMatches ( 0, path, start, length ) ) {
+
+          final var child =
+            deref (
+              cell
+            );
+
+          if ( child != null ) {
+            return touch ( child );
+          }
+
+        }
+
+      }
+
+      final var hash =
+        hash (
+          path,
+          start,
+          end
+        );
+
+      final var child =
+        child (
+          hash,
+          path,
+          start,
+          end
+        );
+
+      return
+        child != null
+        ? touch ( child )
+        : add ( path, start, end, hash, allocate () );
+
+    }
+
+    /*
+     * Interns a child under an id allocated beforehand, as when preloading.
+     */
+
+    /*
+     * Returns the live child with the segment, if any, without interning it.
+     */
+
+    private Name child (
+      final String segment
+    ) {
+
+      return
+        child (
+          segment.hashCode (),
+          segment,
+          0,
+          segment.length ()
+        );
+
+    }
+
+    /*
+     * Interns the segment under the id, which is then the caller's no longer,
+     * being released should a racing insert of the same segment win.
+     */
+
+    private Name add (
+      final String segment,
+      final int id
+    ) {
+
+      return
+        add (
+          segment,
+          0,
+          segment.length (),
+          segment.hashCode (),
+          id
+        );
+
+    }
+
+    private Name child (
+      final int hash,
+      final Object path,
+      final int start,
+      final int end
+    ) {
+
+      var cell =
+        children;
+
+      var shift =
+        0;
+
+      for ( ; ; ) {
+
+        if ( cell instanceof AtomicReferenceArray< ? > node ) {
+
+          cell =
+            node.get (
+              ( hash >>> shift ) & MASK
+            );
+
+          shift +=
+            BITS;
+
+        } else if ( cell instanceof Object[] entries ) {
+
+          final var index =
+            search (
+              entries,
+              hash,
+              path,
+              start,
+              end
+            );
+
+          return
+            index >= 0
+            ? deref ( entries[index] )
+            : null;
+
+        } else {
+
+          return
+            cell != null && matches ( cell, hash, path, start, end )
+            ? deref ( cell )
+            : null;
+
+        }
+
+      }
+
+    }
+
+    private Name add (
+      final String path,
+      final int start,
+      final int end,
+      final int hash,
+      final int id
+    ) {
+
+      expunge ();
+
+      final var interning =
+        INTERNING;
+
+      final var segment =
+        segment (
+          path,
+          start,
+          end
+        );
+
+      final var name =
+        this == ROOTS
+        ? new Name ( segment, id )
+        : new Name ( this, segment, id );
+
+      final var entry =
+        interning.entry (
+          name,
+          this,
+          name.val
+        );
+
+      // registered ahead of publication so an id is resolvable as soon as it can be seen
+
+      REGISTRY.set (
+        name.id,
+        entry
+      );
+
+      final var existing =
+        insert (
+          entry,
+          hash
+        );
+
+      if ( existing != null ) {
+
+        if ( REGISTRY.remove ( name.id, entry ) ) {
+          release ( name.id );
+        }
+
+        return
+          touch (
+            existing
+          );
+
+      }
+
+      interning.admit (
+        name
+      );
+
+      final var dictionary =
+        DICTIONARY;
+
+      if ( dictionary != null ) {
+
+        record (
+          dictionary,
+          name
+        );
+
+      }
+
+      return
+        name;
+
+    }
+
+    /*
+     * Inserts the entry unless a live child with the same segment exists,
+     * which is returned instead. An entry whose name has been collected is
+     * replaced in place so as not to race its expunging.
+     */
+
+    @SuppressWarnings ( "unchecked" )
+    private Name insert (
+      final Object entry,
+      final int hash
+    ) {
+
+      final var key =
+        key (
+          entry
+        );
+
+      final var length =
+        key.length ();
+
+      AtomicReferenceArray< Object > node =
+        null;
+
+      var index =
+        0;
+
+      var shift =
+        0;
+
+      for ( ; ; ) {
+
+        final var cell =
+          node == null
+          ? children
+          : node.get ( index );
+
+        final Object update;
+
+        if ( cell == null ) {
+
+          update =
+            entry;
+
+        } else if ( cell instanceof AtomicReferenceArray< ? > nested ) {
+
+          node =
+            (AtomicReferenceArray< Object >) nested;
+
+          index =
+            ( hash >>> shift ) & MASK;
+
+          shift +=
+            BITS;
+
+          continue;
+
+        } else if ( cell instanceof Object[] entries ) {
+
+          final var found =
+            search (
+              entries,
+              hash,
+              key,
+              0,
+              length
+            );
+
+          if ( found >= 0 ) {
+
+            final var existing =
+              deref (
+                entries[found]
+              );
+
+            if ( existing != null ) {
+              return existing;
+            }
+
+            update =
+              replace (
+                entries,
+                found,
+                entry
+              );
+
+          } else {
+
+            update =
+              grow (
+                entries,
+                entry,
+                shift
+              );
+
+          }
+
+        } else if ( matches ( cell, hash, key, 0, length ) ) {
+
+          final var existing =
+            deref (
+              cell
+            );
+
+          if ( existing != null ) {
+            return existing;
+          }
+
+          update =
+            entry;
+
+        } else {
+
+          update =
+            pair (
+              cell,
+              entry
+            );
+
+        }
+
+        if (
+          node == null
+          ? CHILDREN.compareAndSet ( this, cell, update )
+          : node.compareAndSet ( index, cell, update )
+        ) {
+
+          return
+            null;
+
+        }
+
+      }
+
+    }
+
+    @SuppressWarnings ( "unchecked" )
+    void remove (
+      final Ref ref
+    ) {
+
+      final var hash =
+        hash (
+          ref
+        );
+
+      AtomicReferenceArray< Object > node =
+        null;
+
+      var index =
+        0;
+
+      var shift =
+        0;
+
+      for ( ; ; ) {
+
+        final var cell =
+          node == null
+          ? children
+          : node.get ( index );
+
+        final Object update;
+
+        if ( cell instanceof AtomicReferenceArray< ? > nested ) {
+
+          node =
+            (AtomicReferenceArray< Object >) nested;
+
+          index =
+            ( hash >>> shift ) & MASK;
+
+          shift +=
+            BITS;
+
+          continue;
+
+        } else if ( cell == ref ) {
+
+          update =
+            null;
+
+        } else if ( cell instanceof Object[] entries ) {
+
+          var found =
+            entries.length - 1;
+
+          while ( found >= 0 && entries[found] != ref ) {
+            found--;
+          }
+
+          if ( found < 0 ) {
+            return;
+          }
+
+          update =
+            delete (
+              entries,
+              found
+            );
+
+        } else {
+
+          return;
+
+        }
+
+        if (
+          node == null
+          ? CHILDREN.compareAndSet ( this, cell, update )
+          : node.compareAndSet ( index, cell, update )
+        ) {
+
+          return;
+
+        }
+
+      }
+
+    }
+
+    Name node (
+      final Enum< ? > value
+    ) {
+
+      return
+        node (
+          value.name ()
+        );
+
+    }
+
+    private Name parseNodeOrNull (
+      final String path
+    ) {
+
+      return
+        scan (
+          this,
+          path
+        );
+
+    }
+
+    @Override
+    public String value () {
+
+      return
+        val;
+
+    }
+
+    @Override
+    public Optional< Substrates.Name > enclosure () {
+
+      return
+        ofNullable (
+          prefix
+        );
+
+    }
+
+    @Override
+    public Name name (
+      final String path
+    ) {
+
+      requireNonNull (
+        path
+      );
+
+      checkPath (
+        path
+      );
+
+      return
+        isCompositePath ( path )
+        ? checkName ( parseNodeOrNull ( path ), path )
+        : node ( path );
+
+    }
+
+    @Override
+    public Name name (
+      final Enum< ? > value
+    ) {
+
+      return
+        node (
+          value
+        );
+
+    }
+
+    @Override
+    public Name name (
+      final Substrates.Name path
+    ) {
+
+      //noinspection CastToConcreteClass
+      return
+        name (
+          (Name) path
+        );
+
+    }
+
+    @Override
+    public < T > T foldTo (
+      final Function< ? super Substrates.Name, ? extends T > initial,
+      final BiFunction< ? super T, ? super Substrates.Name, T > accumulator
+    ) {
+
+      final var names =
+        ancestry ();
+
+      T result =
+        initial.apply (
+          names[0]
+        );
+
+      for ( var i = 1; i < names.length; i++ ) {
+
+        result =
+          accumulator.apply (
+            result,
+            names[i]
+          );
+
+      }
+
+      return
+        result;
+
+    }
+
+    @Override
+    public < T > T foldFrom (
+      final Function< ? super Substrates.Name, ? extends T > initial,
+      final BiFunction< ? super T, ? super Substrates.Name, T > accumulator
+    ) {
+
+      T result =
+        initial.apply (
+          this
+        );
+
+      for ( var name = prefix; name != null; name = name.prefix ) {
+
+        result =
+          accumulator.apply (
+            result,
+            name
+          );
+
+      }
+
+      return
+        result;
+
+    }
+
+    @Override
+    public java.util.Iterator< Substrates.Name > iterator () {
+
+      return
+        new Iterator (
+          this
+        );
+
+    }
+
+    /**
+     * Returns a name for the path relative to this name that is not interned:
+     * it is neither held by this name nor allocated an id, and so is collected
+     * once unreachable. An ephemeral name equals any name with the same path,
+     * and every name beneath it is ephemeral too.
+     *
+     * @throws IllegalArgumentException if the path does not contain a single non-empty segment
+     */
+
+    Name ephemeral (
+      final String path
+    ) {
+
+      requireNonNull (
+        path
+      );
+
+      checkPath (
+        path
+      );
+
+      final var length =
+        path.length ();
+
+      var name =
+        this;
+
+      var start =
+        0;
+
+      while ( start < length ) {
+
+        var end =
+          path.indexOf (
+            INDEX,
+            start
+          );
+
+        if ( end == -1 ) {
+          end = length;
+        }
+
+        if ( end > start ) {
+
+          name =
+            new Name (
+              name,
+              segment ( path, start, end ),
+              EPHEMERAL
+            );
+
+        }
+
+        start =
+          end + 1;
+
+      }
+
+      return
+        checkName (
+          name != this ? name : null,
+          path
+        );
+
+    }
+
+    /**
+     * Streams this name and every live name beneath it in the given order,
+     * reading the child tables in place. The stream is weakly consistent: it
+     * never blocks interning and may or may not include names interned or
+     * collected while it runs.
+     */
+
+    Stream< Name > stream (
+      final Traversal traversal
+    ) {
+
+      return
+        StreamSupport.stream (
+          Spliterators.spliteratorUnknownSize (
+            new Walker (
+              this,
+              traversal == Traversal.DEPTH_FIRST
+            ),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+          ),
+          false
+        );
+
+    }
+
+    /*
+     * Adds the live children held within the cell, descending into nodes.
+     */
+
+    private static void children (
+      final Object cell,
+      final ArrayDeque< Name > pending
+    ) {
+
+      if ( cell instanceof AtomicReferenceArray< ? > node ) {
+
+        for ( var i = 0; i < node.length (); i++ ) {
+
+          children (
+            node.get ( i ),
+            pending
+          );
+
+        }
+
+      } else if ( cell instanceof Object[] entries ) {
+
+        for ( final var entry : entries ) {
+
+          children (
+            entry,
+            pending
+          );
+
+        }
+
+      } else if ( cell != null ) {
+
+        final var name =
+          deref (
+            cell
+          );
+
+        if ( name != null ) {
+          pending.addLast ( name );
+        }
+
+      }
+
+    }
+
+    boolean isEphemeral () {
+
+      return
+        id == EPHEMERAL;
+
+    }
+
+    @Override
+    public int hashCode () {
+
+      return
+        hash;
+
+    }
+
+    /*
+     * Interned names are unique, so only where one side is ephemeral
+     * can distinct instances be equal, and then only segment by segment
+     * up to the first ancestor the two share.
+     */
+
+    @Override
+    public boolean equals (
+      final Object o
+    ) {
+
+      if ( this == o ) {
+        return true;
+      }
+
+      //noinspection CastToConcreteClass
+      if ( !( o instanceof Name other )
+        || id != EPHEMERAL && other.id != EPHEMERAL
+        || hash != other.hash
+        || depth != other.depth ) {
+        return false;
+      }
+
+      var left =
+        this;
+
+      var right =
+        other;
+
+      while ( left != right ) {
+
+        if ( !left.val.equals ( right.val ) ) {
+          return false;
+        }
+
+        left =
+          left.prefix;
+
+        right =
+          right.prefix;
+
+      }
+
+      return
+        true;
+
+    }
+
+    Names.Name name (
+      final Names.Name path
+    ) {
+
+      var name =
+        this;
+
+      for ( final var segment : path.ancestry () ) {
+
+        name =
+          name.node (
+            segment.val
+          );
+
+      }
+
+      return
+        name;
+
+    }
+
+    @Override
+    public void forEach (
+      final Consumer< ? super Substrates.Name > action
+    ) {
+
+      var name = this;
+
+      do {
+
+        action.accept (
+          name
+        );
+
+      } while (
+        ( name = name.prefix ) != null
+      );
+
+    }
+
+    @Override
+    public String toPath () {
+
+      final var result =
+        fqn;
+
+      return
+        result != null
+        ? result
+        : ( fqn = path ( DOT ) );
+
+    }
+
+    /**
+     * Returns the path of this name with the segments joined by the separator,
+     * cached per separator on first use, as exporters typically render names
+     * with one of only a few separators.
+     */
+
+    String toPath (
+      final char separator
+    ) {
+
+      if ( separator == DOT ) {
+        return toPath ();
+      }
+
+      if ( prefix == null ) {
+        return val;
+      }
+
+      for ( var rendering = renderings; rendering != null; rendering = rendering.next ) {
+        if ( rendering.separator == separator ) return rendering.path;
+      }
+
+      final var path =
+        path (
+          separator
+        );
+
+      // a racing update may drop a rendering, which is then only rendered again
+
+      renderings =
+        new Rendering (
+          separator,
+          path,
+          renderings
+        );
+
+      return
+        path;
+
+    }
+
+    private record Rendering(
+      char separator,
+      String path,
+      Rendering next
+    ) {}
+
+    /*
+     * Holds the names yet to be visited, taking the most recently added
+     * first when depth first and the least recently added when breadth first.
+     */
+
+    private static final class Walker
+      implements java.util.Iterator< Name > {
+
+      private final ArrayDeque< Name > pending =
+        new ArrayDeque<> ();
+
+      private final boolean depthFirst;
+
+      Walker (
+        final Name name,
+        final boolean depthFirst
+      ) {
+
+        this.depthFirst =
+          depthFirst;
+
+        pending.add (
+          name
+        );
+
+      }
+
+      @Override
+      public boolean hasNext () {
+
+        return
+          !pending.isEmpty ();
+
+      }
+
+      @Override
+      public Name next () {
+
+        final var result =
+          depthFirst
+          ? pending.pollLast ()
+          : pending.pollFirst ();
+
+        if ( result != null ) {
+
+          children (
+            result.children,
+            pending
+          );
+
+          return
+            result;
+
+        }
+
+        throw
+          new NoSuchElementException ();
+
+      }
+
+    }
+
+    private static final class Iterator
+      implements java.util.Iterator< Substrates.Name > {
+
+      Name name;
+
+      Iterator (
+        final Name name
+      ) {
+
+        this.name =
+          name;
+
+      }
+
+      @Override
+      public boolean hasNext () {
+
+        return
+          name != null;
+
+      }
+
+      @Override
+      public Name next () {
+
+        final var result =
+          name;
+
+        if ( result != null ) {
+
+          name =
+            result.left ();
+
+          return
+            result;
+
+        }
+
+        throw
+          new NoSuchElementException ();
+
+      }
+
+    }
+
+
+  }
+
+  /*
+   * Interns a range of sorted paths, forking while the range is large. Within
+   * a range the names resolved for the segments of the previous path are kept
+   * by depth so that a path only resolves the segments beyond those shared.
+   */
+
+  private static final class Bulk
+    extends RecursiveAction {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int THRESHOLD = 1 << 10;
+
+    private final String[] paths;
+    private final int      from;
+    private final int      to;
+
+    Bulk (
+      final String[] paths,
+      final int from,
+      final int to
+    ) {
+
+      this.paths =
+        paths;
+
+      this.from =
+        from;
+
+      this.to =
+        to;
+
+    }
+
+    @Override
+    protected void compute () {
+
+      if ( to - from > THRESHOLD ) {
+
+        final var mid =
+          ( from + to ) >>> 1;
+
+        invokeAll (
+          new Bulk ( paths, from, mid ),
+          new Bulk ( paths, mid, to )
+        );
+
+      } else {
+
+        intern ();
+
+      }
+
+    }
+
+    private void intern () {
+
+      var names =
+        new Name[16];
+
+      var starts =
+        new int[16];
+
+      var ends =
+        new int[16];
+
+      var count =
+        0;
+
+      String previous =
+        null;
+
+      for ( var i = from; i < to; i++ ) {
+
+        final var path =
+          paths[i];
+
+        checkPath (
+          path
+        );
+
+        if ( path.equals ( previous ) ) {
+          continue;
+        }
+
+        final var length =
+          path.length ();
+
+        var shared =
+          0;
+
+        var depth =
+          0;
+
+        var start =
+          0;
+
+        while ( start < length ) {
+
+          var end =
+            path.indexOf (
+              INDEX,
+              start
+            );
+
+          if ( end == -1 ) {
+            end = length;
+          }
+
+          if ( end > start ) {
+
+            if ( depth == names.length ) {
+
+              names =
+                Arrays.copyOf (
+                  names,
+                  depth << 1
+                );
+
+              starts =
+                Arrays.copyOf (
+                  starts,
+                  depth << 1
+                );
+
+              ends =
+                Arrays.copyOf (
+                  ends,
+                  depth << 1
+                );
+
+            }
+
+            if ( shared == depth && depth < count
+              && ends[depth] - starts[depth] == end - start
+              && previous.regionMatches ( starts[depth], path, start, end - start ) ) {
+
+              shared++;
+
+            } else {
+
+              names[depth] =
+                depth == 0
+                ? root ( path, start, end )
+                : names[depth - 1].node ( path, start, end );
+
+            }
+
+            starts[depth] =
+              start;
+
+            ends[depth] =
+              end;
+
+            depth++;
+
+          }
+
+          start =
+            end + 1;
+
+        }
+
+        if ( depth == 0 ) {
+          throw illegalArgument ( path );
+        }
+
+        if ( depth > 1 ) {
+
+          MAP.put (
+            path,
+            INTERNING.entry (
+              names[depth - 1],
+              null,
+              path
+            )
+          );
+
+        }
+
+        previous =
+          path;
+
+        count =
+          depth;
+
+      }
+
+    }
+
+  }
+
+  /*
+   * The retention in effect, with the clock only present when bounded.
+   */
+
+  private record Interning(
+    Retention retention,
+    Clock clock
+  ) {
+
+    Object entry (
+      final Name name,
+      final Name owner,
+      final String key
+    ) {
+
+      return
+        retention == Retention.STRONG
+        ? name
+        : new Ref ( name, owner, key );
+
+    }
+
+    void admit (
+      final Name name
+    ) {
+
+      if ( clock != null ) {
+
+        clock.admit (
+          name
+        );
+
+      }
+
+    }
+
+  }
+
+  /*
+   * A weak table entry that removes itself from its owner once
+   * the name it refers to has been collected.
+   */
+
+  private static final class Ref
+    extends WeakReference< Name > {
+
+    private final Name   owner;
+    private final String key;
+    private final int    id;
+
+    /*
+     * A null owner denotes the composite path map rather than a parent.
+     */
+
+    Ref (
+      final Name name,
+      final Name owner,
+      final String key
+    ) {
+
+      super (
+        name,
+        QUEUE
+      );
+
+      this.owner =
+        owner;
+
+      this.key =
+        key;
+
+      id =
+        name.id;
+
+    }
+
+    void expunge () {
+
+      if ( owner != null ) {
+
+        owner.remove (
+          this
+        );
+
+      } else {
+
+        MAP.remove (
+          key,
+          this
+        );
+
+      }
+
+      // the map entry of a composite path shares the id but was never registered
+
+      if ( REGISTRY.remove ( id, this ) ) {
+        release ( id );
+      }
+
+    }
+
+  }
+
+  /*
+   * A CLOCK (second chance) ring that strongly holds a bounded number of
+   * recently used names. Admission never blocks: a name is queued and the
+   * queue drained into the ring by whichever thread wins the lock, with
+   * marks only changed by CAS so that none is lost to a racing eviction.
+   */
+
+  private static final class Clock {
+
+    private final ConcurrentLinkedQueue< Name > queue =
+      new ConcurrentLinkedQueue<> ();
+
+    private final ReentrantLock lock =
+      new ReentrantLock ();
+
+    private final Name[]  ring;
+    private       int     hand;
+    private       boolean closed;
+
+    Clock (
+      final int capacity
+    ) {
+
+      ring =
+        new Name[max ( 1, capacity )];
+
+    }
+
+    void touch (
+      final Name name
+    ) {
+
+      final var mark =
+        name.mark;
+
+      if ( mark == HELD ) {
+
+        Name.MARKS.compareAndSet (
+          name,
+          HELD,
+          MARKED
+        );
+
+      } else if ( mark == IDLE ) {
+
+        admit (
+          name
+        );
+
+      }
+
+    }
+
+    void admit (
+      final Name name
+    ) {
+
+      if ( Name.MARKS.compareAndSet ( name, IDLE, QUEUED ) ) {
+
+        queue.offer (
           name
         );
 
-    }
-
-    private static < T > T foldFrom (
-      final Name name,
-      final BiFunction< ? super T, ? super Name, T > accumulator,
-      final T value
-    ) {
+        drain ();
 
-      return
-        name != null
-        ? name.foldFrom ( accumulator, value )
-        : value;
+      }
 
     }
 
+    // loops so that a name queued as the lock is released is never stranded
 
-    Name (
-      final String value
-    ) {
-
-      prefix =
-        null;
+    private void drain () {
 
-      val =
-        value;
+      while ( !queue.isEmpty () && lock.tryLock () ) {
 
-    }
+        try {
 
-    private Name (
-      final Name prefix,
-      final String value
-    ) {
+          Name name;
 
-      this.prefix =
-        prefix;
+          while ( ( name = queue.poll () ) != null ) {
 
-      val =
-        value;
+            if ( closed ) {
 
-    }
+              name.mark =
+                IDLE;
 
-    Name left () {
+            } else {
 
-      return
-        prefix;
+              place (
+                name
+              );
 
-    }
+            }
 
-    private String path () {
+          }
 
-      return
-        foldTo (
-          this,
-          seed ->
-            new StringBuilder (
-              seed.val
-            ),
-          ( builder, node ) ->
-            builder.append (
-              DOT
-            ).append (
-              node.val
-            )
-        ).toString ();
+        } finally {
 
-    }
+          lock.unlock ();
 
-    @Override
-    public String toString () {
+        }
 
-      return
-        toPath ();
+      }
 
     }
 
-    Name node (
-      final String single
+    private void place (
+      final Name name
     ) {
 
-      return
-        getOrAdd (
-          single,
-          cache (),
-          value ->
-            new Name (
-              this,
-              value
-            )
-        );
+      for ( ; ; ) {
 
-    }
+        final var slot =
+          hand;
 
-    Name node (
-      final Enum< ? > value
-    ) {
+        final var victim =
+          ring[slot];
 
-      return
-        node (
-          value.name ()
-        );
+        hand =
+          ( slot + 1 ) % ring.length;
 
-    }
+        if ( victim == null || Name.MARKS.compareAndSet ( victim, HELD, IDLE ) ) {
 
-    private Name getOrParse (
-      final String string
-    ) {
+          ring[slot] =
+            name;
+
+          name.mark =
+            HELD;
 
-      final var nodes =
-        cache ();
+          return;
 
-      final var node =
-        nodes.get (
-          string
+        }
+
+        // a marked victim is given a second chance
+
+        Name.MARKS.compareAndSet (
+          victim,
+          MARKED,
+          HELD
         );
 
-      return
-        node != null
-        ? node
-        : parseAndMaybeCacheNode ( string, nodes );
+      }
 
     }
 
-    private Name parseAndMaybeCacheNode (
-      final String string,
-      final Map< ? super String, ? super Name > nodes
-    ) {
+    /*
+     * Releases every name held or queued, and any queued hereafter
+     * through a stale read of the interning, back to idle.
+     */
 
-      final var node =
-        checkName (
-          parseNodeOrNull (
-            string
-          ),
-          string
-        );
+    void close () {
 
-      if ( isNotChild ( node ) ) {
+      lock.lock ();
 
-        nodes.put (
-          string,
-          node
-        );
+      try {
 
-      }
+        closed =
+          true;
 
-      return
-        node;
+        for ( var i = 0; i < ring.length; i++ ) {
 
-    }
+          final var name =
+            ring[i];
 
-    private boolean isNotChild (
-      final Name child
-    ) {
+          if ( name != null ) {
 
-      return
-        child.prefix != this;
+            name.mark =
+              IDLE;
 
-    }
+            ring[i] =
+              null;
 
-    private Name parseNodeOrNull (
-      final CharSequence sequence
-    ) {
+          }
 
-      return
-        splitAsStream (
-          sequence
-        ).reduce (
-          null,
-          ( name, single ) ->
-            name == null
-            ? node ( single )
-            : name.node ( single ),
-          ( n1, n2 ) -> n2
-        );
+        }
 
-    }
+        Name name;
 
-    private ConcurrentHashMap< String, Name > cache () {
+        while ( ( name = queue.poll () ) != null ) {
 
-      final var map =
-        cache;
+          name.mark =
+            IDLE;
 
-      return
-        map != null ?
-        map :
-        updateAndGetCache ();
+        }
 
-    }
+      } finally {
 
-    private ConcurrentHashMap< String, Name > updateAndGetCache () {
+        lock.unlock ();
 
-      return
-        UPDATER
-          .updateAndGet (
-            this,
-            prev ->
-              prev == null
-              ? createCache ()
-              : prev
-          );
+      }
 
     }
 
-    @Override
-    public String value () {
+  }
 
-      return
-        val;
+  /**
+   * A lock-free table indexed by name id. Slots are held in fixed size pages
+   * that are only allocated once an id within their range is first written,
+   * so a table sized to sparse ids stays small. Ids are reused once their
+   * names are collected, so a value should only be held for a name kept
+   * reachable, as by the value itself.
+   *
+   * @param <T> the type of value held
+   */
 
-    }
+  static final class Table< T > {
 
-    @Override
-    public Optional< Substrates.Name > enclosure () {
+    private static final int SHIFT = 8;
+    private static final int SIZE  = 1 << SHIFT;
+    private static final int MASK  = SIZE - 1;
 
-      return
-        ofNullable (
-          prefix
-        );
+    private static final AtomicReferenceArray< ? > SEALED =
+      new AtomicReferenceArray<> ( 0 );
 
-    }
+    @SuppressWarnings ( "rawtypes" )
+    private static final AtomicReferenceFieldUpdater< Table, AtomicReferenceArray > PAGES =
+      AtomicReferenceFieldUpdater.newUpdater (
+        Table.class,
+        AtomicReferenceArray.class,
+        "pages"
+      );
 
-    @Override
-    public Name name (
-      final String path
+    private volatile AtomicReferenceArray< AtomicReferenceArray< T > > pages =
+      new AtomicReferenceArray<> ( 4 );
+
+    T get (
+      final int id
     ) {
 
-      requireNonNull (
-        path
-      );
+      if ( id < 0 ) {
+        return null;
+      }
 
-      checkPath (
-        path
-      );
+      final var dir =
+        pages;
 
-      return
-        isCompositePath ( path )
-        ? getOrParse ( path )
-        : node ( path );
+      final var index =
+        id >>> SHIFT;
 
-    }
+      if ( index >= dir.length () ) {
+        return null;
+      }
 
-    @Override
-    public Name name (
-      final Enum< ? > value
-    ) {
+      final var page =
+        dir.get (
+          index
+        );
 
       return
-        node (
-          value
-        );
+        page != null && page != SEALED
+        ? page.get ( id & MASK )
+        : null;
 
     }
 
-    @Override
-    public Name name (
-      final Substrates.Name path
+    void set (
+      final int id,
+      final T value
     ) {
 
-      //noinspection CastToConcreteClass
-      return
-        name (
-          (Name) path
-        );
+      page ( id ).set (
+        id & MASK,
+        value
+      );
 
     }
 
-    @Override
-    public < T > T foldTo (
-      final Function< ? super Substrates.Name, ? extends T > initial,
-      final BiFunction< ? super T, ? super Substrates.Name, T > accumulator
+    /**
+     * Returns the value already held at the id, or null when the given value was stored.
+     */
+
+    T putIfAbsent (
+      final int id,
+      final T value
     ) {
 
-      return
-        foldTo (
-          this,
-          initial,
-          accumulator
+      final var page =
+        page (
+          id
         );
 
+      final var index =
+        id & MASK;
+
+      return
+        page.compareAndSet ( index, null, value )
+        ? null
+        : page.get ( index );
+
     }
 
-    @Override
-    public < T > T foldFrom (
-      final Function< ? super Substrates.Name, ? extends T > initial,
-      final BiFunction< ? super T, ? super Substrates.Name, T > accumulator
+    /**
+     * Clears the id should it still hold the value, returning true if it did.
+     */
+
+    boolean remove (
+      final int id,
+      final T value
     ) {
 
-      final var name =
-        prefix;
+      final var dir =
+        pages;
 
-      final var seed =
-        initial.apply (
-          this
+      final var index =
+        id >>> SHIFT;
+
+      if ( id < 0 || index >= dir.length () ) {
+        return false;
+      }
+
+      final var page =
+        dir.get (
+          index
         );
 
       return
-        name != null
-        ? name.foldFrom ( accumulator, seed )
-        : seed;
+        page != null
+          && page != SEALED
+          && page.compareAndSet ( id & MASK, value, null );
 
     }
 
-    @Override
-    public java.util.Iterator< Substrates.Name > iterator () {
+    /**
+     * Returns the number of pages allocated, each holding the values of SIZE ids.
+     */
 
-      return
-        new Iterator (
-          this
-        );
+    int pages () {
 
-    }
+      final var dir =
+        pages;
 
-    Names.Name name (
-      final Names.Name path
-    ) {
+      var count =
+        0;
 
-      return
-        path
-          .foldTo (
-            node (
-              path.val
-            ),
-            ( t, p ) ->
-              t.node (
-                p.val
-              )
+      for ( var i = 0; i < dir.length (); i++ ) {
+
+        final var page =
+          dir.get (
+            i
           );
 
-    }
+        if ( page != null && page != SEALED ) {
+          count++;
+        }
 
-    private < T > T foldFrom (
-      final BiFunction< ? super T, ? super Name, T > accumulator,
-      final T seed
-    ) {
+      }
 
       return
-        foldFrom (
-          prefix,
-          accumulator,
-          accumulator.apply (
-            seed,
-            this
-          )
-        );
+        count;
 
     }
 
-    private < T > T foldTo (
-      final T initial,
-      final BiFunction< T, Name, T > accumulator
+    private AtomicReferenceArray< T > page (
+      final int id
     ) {
 
-      return
-        prefix != null
-        ? accumulator
-          .apply (
-            prefix.foldTo (
-              initial,
-              accumulator
-            ),
-            this
-          )
-        : initial;
+      if ( id < 0 ) {
 
-    }
+        throw
+          new IllegalArgumentException (
+            "Invalid Id: " + id
+          );
 
-    @Override
-    public void forEach (
-      final Consumer< ? super Substrates.Name > action
-    ) {
+      }
 
-      var name = this;
+      final var index =
+        id >>> SHIFT;
 
-      do {
+      AtomicReferenceArray< T > created =
+        null;
 
-        action.accept (
-          name
-        );
+      for ( ; ; ) {
 
-      } while (
-        ( name = name.prefix ) != null
-      );
+        final var dir =
+          directory (
+            index
+          );
 
-    }
+        final var page =
+          dir.get (
+            index
+          );
 
-    @Override
-    public String toPath () {
+        if ( page != null && page != SEALED ) {
+          return page;
+        }
 
-      final var result =
-        fqn;
+        if ( page == null ) {
 
-      return
-        result != null
-        ? result
-        : ( fqn = path () );
+          if ( created == null ) {
+            created = new AtomicReferenceArray<> ( SIZE );
+          }
+
+          if ( dir.compareAndSet ( index, null, created ) ) {
+            return created;
+          }
+
+        }
+
+      }
 
     }
 
-    private static final class Iterator
-      implements java.util.Iterator< Substrates.Name > {
+    /*
+     * Pages are carried over by reference when the directory grows. Empty
+     * slots of the old directory are sealed as they are copied so that a
+     * page can never be installed into a directory once it is replaced.
+     */
 
-      Name name;
+    private AtomicReferenceArray< AtomicReferenceArray< T > > directory (
+      final int index
+    ) {
 
-      Iterator (
-        final Name name
-      ) {
+      for ( ; ; ) {
 
-        this.name =
-          name;
+        final var dir =
+          pages;
 
-      }
+        final var length =
+          dir.length ();
 
-      @Override
-      public boolean hasNext () {
+        if ( index < length ) {
+          return dir;
+        }
 
-        return
-          name != null;
+        final var grown =
+          new AtomicReferenceArray< AtomicReferenceArray< T > > (
+            max ( length << 1, index + 1 )
+          );
 
-      }
+        for ( var i = 0; i < length; i++ ) {
 
-      @Override
-      public Name next () {
+          var page =
+            dir.get (
+              i
+            );
 
-        final var result =
-          name;
+          while (
+            page == null &&
+              !dir.compareAndSet ( i, null, sealed () )
+          ) {
 
-        if ( result != null ) {
+            page =
+              dir.get (
+                i
+              );
 
-          name =
-            result.left ();
+          }
 
-          return
-            result;
+          if ( page != null && page != SEALED ) {
+
+            grown.set (
+              i,
+              page
+            );
+
+          }
 
         }
 
-        throw
-          new NoSuchElementException ();
+        PAGES.compareAndSet (
+          this,
+          dir,
+          grown
+        );
 
       }
 
     }
 
+    @SuppressWarnings ( "unchecked" )
+    private static < T > AtomicReferenceArray< T > sealed () {
 
-  }
-
-  /*
-   * A struct like class for reduce/collect like operations
-   */
-
-  private static final class Closure {
-
-    Name value;
+      return
+        (AtomicReferenceArray< T >) SEALED;
 
-    Closure () {}
+    }
 
   }
 
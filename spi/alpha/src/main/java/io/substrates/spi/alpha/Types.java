@@ -3,8 +3,6 @@ package io.substrates.spi.alpha;
 import io.humainary.substrates.Substrates;
 import io.substrates.spi.alpha.Names.Name;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 final class Types {
 
   private Types () {}
@@ -13,17 +11,21 @@ final class Types {
     Name name
   ) implements Substrates.Type {}
 
-  private static final ConcurrentHashMap< Name, Type > MAP =
-    new ConcurrentHashMap<> ( 109 );
+  // a type holds its name, so the id it is held under cannot be reused while it is
+
+  private static final Names.Table< Type > MAP =
+    new Names.Table<> ();
 
   static Substrates.Type of (
     final Name name
   ) {
 
+    // an ephemeral name has no id to be held under, and caching its type would keep it alive
+
     return
-      lookup (
-        name
-      );
+      name.isEphemeral ()
+      ? new Type ( name )
+      : lookup ( name );
 
   }
 
@@ -33,17 +35,36 @@ final class Types {
 
     final var type =
       MAP.get (
-        name
+        name.id ()
       );
 
     return
       type != null ?
       type :
-      MAP.computeIfAbsent (
-        name,
-        Type::new
+      add ( name );
+
+  }
+
+  private static Type add (
+    final Name name
+  ) {
+
+    final var type =
+      new Type (
+        name
       );
 
+    final var existing =
+      MAP.putIfAbsent (
+        name.id (),
+        type
+      );
+
+    return
+      existing != null ?
+      existing :
+      type;
+
   }
 
 }
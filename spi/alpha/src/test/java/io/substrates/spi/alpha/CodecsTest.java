@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodecsTest {
+
+  @Test
+  void round_trip () {
+
+    final var encoder =
+      Codecs.encoder ();
+
+    final var decoder =
+      Codecs.decoder ();
+
+    final var buffer =
+      ByteBuffer.allocate ( 1024 );
+
+    final var first =
+      Names.of (
+        "codecs.test.service.latency"
+      );
+
+    final var sibling =
+      Names.of (
+        "codecs.test.service.throughput"
+      );
+
+    final var session =
+      first.ephemeral (
+        "session.42"
+      );
+
+    encoder.encode ( first, buffer );
+    encoder.encode ( first, buffer );
+    encoder.encode ( sibling, buffer );
+    encoder.encode ( session, buffer );
+
+    final var size =
+      buffer.position ();
+
+    encoder.encode ( first, buffer );
+
+    // a name already defined is written as a single byte reference
+
+    assertEquals (
+      size + 1,
+      buffer.position ()
+    );
+
+    buffer.flip ();
+
+    assertSame ( first, decoder.decode ( buffer ) );
+    assertSame ( first, decoder.decode ( buffer ) );
+    assertSame ( sibling, decoder.decode ( buffer ) );
+
+    final var decoded =
+      decoder.decode (
+        buffer
+      );
+
+    assertNotSame (
+      session,
+      decoded
+    );
+
+    assertTrue (
+      decoded.isEphemeral ()
+    );
+
+    assertEquals (
+      session,
+      decoded
+    );
+
+    assertSame ( first, decoder.decode ( buffer ) );
+
+    assertEquals (
+      0,
+      buffer.remaining ()
+    );
+
+  }
+
+  @Test
+  void invalid () {
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> Codecs.decoder ().decode ( ByteBuffer.wrap ( new byte[]{ 4 } ) )
+    );
+
+  }
+
+  @Test
+  void truncated () {
+
+    final var encoder =
+      Codecs.encoder ();
+
+    final var decoder =
+      Codecs.decoder ();
+
+    final var buffer =
+      ByteBuffer.allocate ( 1024 );
+
+    final var name =
+      Names.of (
+        "codecs.test.truncated.service.latency"
+      );
+
+    encoder.encode ( name, buffer );
+
+    final var defined =
+      buffer.position ();
+
+    encoder.encode ( name, buffer );
+
+    buffer.flip ();
+
+    // cut short partway through the segments of the definition
+
+    final var truncated =
+      buffer
+        .duplicate ()
+        .limit ( defined - 3 );
+
+    assertThrows (
+      BufferUnderflowException.class,
+      () -> decoder.decode ( truncated )
+    );
+
+    // read again in full, with the reference resolved as encoded
+
+    assertSame ( name, decoder.decode ( buffer ) );
+    assertSame ( name, decoder.decode ( buffer ) );
+
+  }
+
+}
@@ -0,0 +1,896 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Event;
+import io.humainary.substrates.Substrates.Hub;
+import io.humainary.substrates.Substrates.Reference;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HubsTest {
+
+  private static final Reference REFERENCE =
+    References.of (
+      Types.of ( Names.of ( HubsTest.class ) ),
+      Names.of ( "hubs.test.emitter" ),
+      Environment.EMPTY
+    );
+
+  private static Environment async (
+    final int capacity
+  ) {
+
+    return
+      async (
+        capacity,
+        "BLOCK"
+      );
+
+  }
+
+  private static Environment async (
+    final int capacity,
+    final String overflow
+  ) {
+
+    // the sample is only applied by SAMPLE
+
+    return
+      Environments.single (
+        Names.of ( "io.substrates.spi.alpha.hub.delivery" ),
+        (Object) "ASYNC"
+      ).override (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.hub.capacity" ),
+          capacity
+        )
+      ).override (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.hub.overflow" ),
+          (Object) overflow
+        )
+      ).override (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.hub.sample" ),
+          3
+        )
+      );
+
+  }
+
+  private static long hubThreads () {
+
+    return
+      Thread.getAllStackTraces ()
+        .keySet ()
+        .stream ()
+        .filter ( thread -> thread.getName ().startsWith ( "substrates-hub-" ) )
+        .count ();
+
+  }
+
+  /*
+   * Emits the first value and, once the subscriber is held delivering it,
+   * the remaining values, before releasing the subscriber and awaiting the
+   * delivery of the expected number of values.
+   */
+
+  private static List< Object > overflow (
+    final String overflow,
+    final Reference[] references,
+    final int expected,
+    final long drops
+  ) throws InterruptedException {
+
+    final Hub< Integer > hub =
+      Hubs.of (
+        async ( 2, overflow )
+      );
+
+    final var held =
+      new CountDownLatch ( 1 );
+
+    final var release =
+      new CountDownLatch ( 1 );
+
+    final var delivered =
+      new CountDownLatch ( expected );
+
+    final List< Object > received =
+      new CopyOnWriteArrayList<> ();
+
+    final var subscription =
+      hub.subscribe (
+        ( reference, registrar ) ->
+          registrar.register (
+            event -> {
+              held.countDown ();
+              try {
+                release.await ();
+              } catch ( final InterruptedException error ) {
+                Thread.currentThread ().interrupt ();
+              }
+              received.add ( event.emittance () );
+              delivered.countDown ();
+            }
+          )
+      );
+
+    hub.inlet ( references[0] ).emit ( 0 );
+
+    assertTrue (
+      held.await ( 5, SECONDS )
+    );
+
+    for ( var i = 1; i < 10; i++ ) {
+      hub.inlet ( references[i % references.length] ).emit ( i );
+    }
+
+    assertEquals (
+      drops,
+      Hubs.drops ( subscription )
+    );
+
+    assertEquals (
+      drops,
+      Hubs.drops ( hub )
+    );
+
+    release.countDown ();
+
+    assertTrue (
+      delivered.await ( 5, SECONDS )
+    );
+
+    return
+      received;
+
+  }
+
+  @Test
+  void overflow_drop_newest () throws InterruptedException {
+
+    assertEquals (
+      List.of ( 0, 1, 2 ),
+      overflow ( "DROP_NEWEST", new Reference[]{ REFERENCE }, 3, 7 )
+    );
+
+  }
+
+  @Test
+  void overflow_drop_oldest () throws InterruptedException {
+
+    assertEquals (
+      List.of ( 0, 8, 9 ),
+      overflow ( "DROP_OLDEST", new Reference[]{ REFERENCE }, 3, 7 )
+    );
+
+  }
+
+  @Test
+  void overflow_sample () throws InterruptedException {
+
+    // 1 is admitted into the empty ring, after which only every third event is,
+    // with 4 taking the last slot and 7 then dropped for want of room
+
+    assertEquals (
+      List.of ( 0, 1, 4 ),
+      overflow ( "SAMPLE", new Reference[]{ REFERENCE }, 3, 7 )
+    );
+
+  }
+
+  @Test
+  void overflow_conflate () throws InterruptedException {
+
+    final var other =
+      References.of (
+        Types.of ( Names.of ( HubsTest.class ) ),
+        Names.of ( "hubs.test.other" ),
+        Environment.EMPTY
+      );
+
+    // 1 and 2 fill the ring, with the latest of each reference held thereafter
+
+    final var received =
+      overflow ( "CONFLATE", new Reference[]{ REFERENCE, other }, 5, 5 );
+
+    assertEquals (
+      List.of ( 0, 1, 2 ),
+      received.subList ( 0, 3 )
+    );
+
+    assertEquals (
+      Set.of ( 8, 9 ),
+      Set.copyOf ( received.subList ( 3, 5 ) )
+    );
+
+  }
+
+  @Test
+  void subscribe_and_cancel () {
+
+    final Hub< Integer > hub =
+      Hubs.of ();
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    final List< Integer > first =
+      new ArrayList<> ();
+
+    final List< Integer > second =
+      new ArrayList<> ();
+
+    inlet.emit ( 0 );
+
+    final var subscription =
+      hub.subscribe (
+        ( reference, registrar ) ->
+          registrar.register (
+            event -> first.add ( event.emittance () )
+          )
+      );
+
+    inlet.emit ( 1 );
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> second.add ( event.emittance () )
+        )
+    );
+
+    inlet.emit ( 2 );
+
+    subscription.cancel ();
+
+    inlet.emit ( 3 );
+
+    assertEquals (
+      List.of ( 1, 2 ),
+      first
+    );
+
+    assertEquals (
+      List.of ( 2, 3 ),
+      second
+    );
+
+  }
+
+  @Test
+  void emit_carriers () {
+
+    final Hub< String > hub =
+      Hubs.of (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.hub.carriers" ),
+          (Object) Boolean.TRUE
+        )
+      );
+
+    final List< Event< String > > events =
+      new ArrayList<> ();
+
+    final List< String > values =
+      new ArrayList<> ();
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+
+            events.add ( event );
+
+            values.add (
+              event.map ( String::toUpperCase ).emittance ()
+            );
+
+            // an emit from within an outlet is given an event of its own
+
+            if ( event.emittance ().equals ( "b" ) ) {
+              inlet.emit ( "c" );
+            }
+
+          }
+        )
+    );
+
+    inlet.emit ( "a" );
+    inlet.emit ( "b" );
+
+    assertEquals (
+      List.of ( "A", "B", "C" ),
+      values
+    );
+
+    assertSame (
+      events.get ( 0 ),
+      events.get ( 1 )
+    );
+
+    assertNotSame (
+      events.get ( 1 ),
+      events.get ( 2 )
+    );
+
+    assertNull (
+      events.get ( 0 ).emittance ()
+    );
+
+  }
+
+  @Test
+  void emit_batch () {
+
+    final Hub< Integer > hub =
+      Hubs.of ();
+
+    final List< List< ? extends Integer > > batches =
+      new ArrayList<> ();
+
+    final List< Integer > values =
+      new ArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          new Hubs.BatchOutlet< Integer > () {
+
+            @Override
+            public void accept (
+              final Reference emitter,
+              final List< ? extends Integer > batch
+            ) {
+              batches.add ( List.copyOf ( batch ) );
+            }
+
+            @Override
+            public void accept (
+              final Event< Integer > event
+            ) {
+              batches.add ( List.of ( event.emittance () ) );
+            }
+
+          }
+        )
+    );
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> values.add ( event.emittance () )
+        )
+    );
+
+    final var inlet =
+      Hubs.inlet (
+        hub,
+        REFERENCE
+      );
+
+    inlet.emitAll ( new LinkedList<> ( List.of ( 1, 2, 3 ) ) );
+    inlet.emitAll ( () -> List.of ( 4, 5 ) );
+    inlet.emit ( 6 );
+
+    assertEquals (
+      List.of ( List.of ( 1, 2, 3 ), List.of ( 4, 5 ), List.of ( 6 ) ),
+      batches
+    );
+
+    assertEquals (
+      List.of ( 1, 2, 3, 4, 5, 6 ),
+      values
+    );
+
+  }
+
+  @Test
+  void emit_supplier () {
+
+    final Hub< Integer > hub =
+      Hubs.of ();
+
+    final var calls =
+      new AtomicInteger ();
+
+    // the subscription registers no outlet for the reference
+
+    hub.subscribe (
+      ( reference, registrar ) -> {
+      }
+    );
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    inlet.emit (
+      () -> calls.incrementAndGet ()
+    );
+
+    assertEquals (
+      0,
+      calls.get ()
+    );
+
+    final List< Integer > values =
+      new ArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> values.add ( event.emittance () )
+        )
+    );
+
+    inlet.emit (
+      () -> calls.incrementAndGet ()
+    );
+
+    assertEquals (
+      List.of ( 1 ),
+      values
+    );
+
+  }
+
+  @Test
+  void emit_primitive () {
+
+    final Hub< Long > hub =
+      Hubs.of ();
+
+    final var primitive =
+      new long[1];
+
+    final List< Long > boxed =
+      new ArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          new Hubs.LongOutlet () {
+
+            @Override
+            public void accept (
+              final Reference emitter,
+              final long value
+            ) {
+              primitive[0] += value;
+            }
+
+            @Override
+            public void accept (
+              final Event< Long > event
+            ) {
+              throw new AssertionError ();
+            }
+
+          }
+        )
+    );
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> boxed.add ( event.emittance () )
+        )
+    );
+
+    final var inlet =
+      Hubs.longInlet (
+        hub,
+        REFERENCE
+      );
+
+    inlet.emit ( 1L );
+    inlet.emit ( 2L );
+
+    assertEquals (
+      3L,
+      primitive[0]
+    );
+
+    assertEquals (
+      List.of ( 1L, 2L ),
+      boxed
+    );
+
+  }
+
+  @Test
+  void emit_primitive_carriers () {
+
+    final Hub< Double > hub =
+      Hubs.of (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.hub.carriers" ),
+          (Object) Boolean.TRUE
+        )
+      );
+
+    final List< Event< Double > > events =
+      new ArrayList<> ();
+
+    final List< Double > values =
+      new ArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+            events.add ( event );
+            values.add ( event.emittance () );
+          }
+        )
+    );
+
+    final var inlet =
+      Hubs.doubleInlet (
+        hub,
+        REFERENCE
+      );
+
+    inlet.emit ( 1.0 );
+    inlet.emit ( 2.0 );
+
+    assertEquals (
+      List.of ( 1.0, 2.0 ),
+      values
+    );
+
+    // the boxed fallback reuses the carrier of the thread, released after each emit
+
+    assertSame (
+      events.get ( 0 ),
+      events.get ( 1 )
+    );
+
+    assertNull (
+      events.get ( 0 ).emittance ()
+    );
+
+  }
+
+  @Test
+  void overflow_block () throws InterruptedException {
+
+    final Hub< Integer > hub =
+      Hubs.of (
+        async ( 2 )
+      );
+
+    final var held =
+      new CountDownLatch ( 1 );
+
+    final var release =
+      new CountDownLatch ( 1 );
+
+    final var delivered =
+      new CountDownLatch ( 10 );
+
+    final List< Integer > received =
+      new CopyOnWriteArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+            held.countDown ();
+            try {
+              release.await ();
+            } catch ( final InterruptedException error ) {
+              Thread.currentThread ().interrupt ();
+            }
+            received.add ( event.emittance () );
+            delivered.countDown ();
+          }
+        )
+    );
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    final var emitted =
+      new AtomicInteger ();
+
+    final var emitter =
+      new Thread (
+        () -> {
+          for ( var i = 0; i < 10; i++ ) {
+            inlet.emit ( i );
+            emitted.incrementAndGet ();
+          }
+        }
+      );
+
+    emitter.start ();
+
+    assertTrue (
+      held.await ( 5, SECONDS )
+    );
+
+    // 0 is held by the subscriber and 1 and 2 fill the ring, so the emit of 3 waits
+
+    Thread.sleep ( 100 );
+
+    assertEquals (
+      3,
+      emitted.get ()
+    );
+
+    assertTrue (
+      emitter.isAlive ()
+    );
+
+    release.countDown ();
+
+    emitter.join ( 5000 );
+
+    assertTrue (
+      delivered.await ( 5, SECONDS )
+    );
+
+    assertEquals (
+      List.of ( 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 ),
+      received
+    );
+
+    assertEquals (
+      0L,
+      Hubs.drops ( hub )
+    );
+
+  }
+
+  @Test
+  void overflow_block_reentrant () throws InterruptedException {
+
+    final Hub< Integer > hub =
+      Hubs.of (
+        async ( 2 )
+      );
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    final var delivered =
+      new CountDownLatch ( 3 );
+
+    final List< Integer > received =
+      new CopyOnWriteArrayList<> ();
+
+    // emitting from within the drain into its own full ring would never return
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+            received.add ( event.emittance () );
+            if ( event.emittance () == 0 ) {
+              for ( var i = 1; i <= 4; i++ ) {
+                inlet.emit ( i );
+              }
+            }
+            delivered.countDown ();
+          }
+        )
+    );
+
+    inlet.emit ( 0 );
+
+    assertTrue (
+      delivered.await ( 5, SECONDS )
+    );
+
+    // 1 and 2 take both slots, with 3 and 4 dropped rather than waited on
+
+    assertEquals (
+      List.of ( 0, 1, 2 ),
+      received
+    );
+
+    assertEquals (
+      2L,
+      Hubs.drops ( hub )
+    );
+
+  }
+
+  @Test
+  void async_single_producer () throws InterruptedException {
+
+    final Hub< Integer > hub =
+      Hubs.of (
+        async ( 64 ).override (
+          Environments.single (
+            Names.of ( "io.substrates.spi.alpha.hub.producers" ),
+            (Object) "SINGLE"
+          )
+        )
+      );
+
+    final var delivered =
+      new CountDownLatch ( 1000 );
+
+    final List< Integer > received =
+      new CopyOnWriteArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+            received.add ( event.emittance () );
+            delivered.countDown ();
+          }
+        )
+    );
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    final var expected =
+      new ArrayList< Integer > ();
+
+    for ( var i = 0; i < 1000; i++ ) {
+      inlet.emit ( i );
+      expected.add ( i );
+    }
+
+    assertTrue (
+      delivered.await ( 5, SECONDS )
+    );
+
+    assertEquals (
+      expected,
+      received
+    );
+
+  }
+
+  @Test
+  void async_slow_subscriber () throws InterruptedException {
+
+    final Hub< Integer > hub =
+      Hubs.of (
+        async ( 4 )
+      );
+
+    final var release =
+      new CountDownLatch ( 1 );
+
+    final var fast =
+      new CountDownLatch ( 3 );
+
+    final var slow =
+      new CountDownLatch ( 3 );
+
+    final List< Integer > received =
+      new CopyOnWriteArrayList<> ();
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+            received.add ( event.emittance () );
+            fast.countDown ();
+          }
+        )
+    );
+
+    hub.subscribe (
+      ( reference, registrar ) ->
+        registrar.register (
+          event -> {
+            try {
+              release.await ();
+            } catch ( final InterruptedException error ) {
+              Thread.currentThread ().interrupt ();
+            }
+            slow.countDown ();
+          }
+        )
+    );
+
+    final var inlet =
+      hub.inlet (
+        REFERENCE
+      );
+
+    for ( var i = 0; i < 3; i++ ) {
+      inlet.emit ( i );
+    }
+
+    // the emits above returned while the slow subscriber is still held
+
+    assertTrue (
+      fast.await ( 5, SECONDS )
+    );
+
+    assertEquals (
+      List.of ( 0, 1, 2 ),
+      received
+    );
+
+    release.countDown ();
+
+    assertTrue (
+      slow.await ( 5, SECONDS )
+    );
+
+  }
+
+  @Test
+  void async_idle_subscriptions () throws InterruptedException {
+
+    final Hub< Integer > hub =
+      Hubs.of (
+        async ( 4 )
+      );
+
+    final var threads =
+      hubThreads ();
+
+    final var delivered =
+      new CountDownLatch ( 100 );
+
+    for ( var i = 0; i < 100; i++ ) {
+
+      hub.subscribe (
+        ( reference, registrar ) ->
+          registrar.register (
+            event -> delivered.countDown ()
+          )
+      );
+
+    }
+
+    // subscriptions with nothing to drain hold no threads
+
+    assertTrue (
+      hubThreads () <= threads
+    );
+
+    hub.inlet ( REFERENCE ).emit ( 1 );
+
+    assertTrue (
+      delivered.await ( 5, SECONDS )
+    );
+
+  }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchersTest {
+
+  @Test
+  void one () {
+
+    final var matcher =
+      Matchers.of (
+        "app.*.latency"
+      );
+
+    assertTrue (
+      matcher.test ( Names.of ( "app.db.latency" ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "app.latency" ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "app.db.pool.latency" ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "app.db.throughput" ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "web.db.latency" ) )
+    );
+
+  }
+
+  @Test
+  void any () {
+
+    final var matcher =
+      Matchers.of (
+        "db.**"
+      );
+
+    assertTrue (
+      matcher.test ( Names.of ( "db" ) )
+    );
+
+    assertTrue (
+      matcher.test ( Names.of ( "db.pool.active" ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "dbx.pool" ) )
+    );
+
+    final var inner =
+      Matchers.of (
+        "**.pool.*"
+      );
+
+    assertTrue (
+      inner.test ( Names.of ( "db.pool.active" ) )
+    );
+
+    assertTrue (
+      inner.test ( Names.of ( "pool.idle" ) )
+    );
+
+    assertTrue (
+      inner.test ( Names.of ( "a.pool.b.pool.c" ) )
+    );
+
+    assertFalse (
+      inner.test ( Names.of ( "db.pool" ) )
+    );
+
+  }
+
+  @Test
+  void literal () {
+
+    final var matcher =
+      Matchers.of (
+        "app.db"
+      );
+
+    assertTrue (
+      matcher.test ( Names.of ( "app.db" ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "app.db.latency" ) )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> Matchers.of ( "..." )
+    );
+
+  }
+
+  @Test
+  void literal_dynamic () {
+
+    final var matcher =
+      Matchers.of (
+        "**.dynamic"
+      );
+
+    // segments scanned from a path built at runtime are distinct strings from the literal
+
+    assertTrue (
+      matcher.test ( Names.of ( String.join ( ".", "app", new String ( "dynamic" ) ) ) )
+    );
+
+    assertTrue (
+      matcher.test ( Names.of ( "app" ).ephemeral ( "session." + new String ( "dynamic" ) ) )
+    );
+
+    assertFalse (
+      matcher.test ( Names.of ( "app.dynamics" ) )
+    );
+
+  }
+
+  // a name of another provider, of which only the path is known
+
+  private static Substrates.Name foreign (
+    final String path
+  ) {
+
+    return
+      (Substrates.Name) Proxy.newProxyInstance (
+        Substrates.Name.class.getClassLoader (),
+        new Class< ? >[]{ Substrates.Name.class },
+        ( proxy, method, args ) -> {
+
+          if ( method.getName ().equals ( "toPath" ) && args == null ) {
+            return path;
+          }
+
+          throw
+            new UnsupportedOperationException (
+              method.getName ()
+            );
+
+        }
+      );
+
+  }
+
+  @Test
+  void foreign () {
+
+    final var matcher =
+      Matchers.of (
+        "app.*.foreign"
+      );
+
+    assertFalse (
+      matcher.test ( foreign ( "app.unseen.foreign" ) )
+    );
+
+    assertNull (
+      Names.find ( "app.unseen.foreign" )
+    );
+
+    Names.of (
+      "app.seen.foreign"
+    );
+
+    assertTrue (
+      matcher.test ( foreign ( "app.seen.foreign" ) )
+    );
+
+  }
+
+}
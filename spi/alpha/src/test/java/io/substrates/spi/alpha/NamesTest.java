@@ -0,0 +1,1447 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.substrates.spi.alpha;
+
+import io.humainary.substrates.Substrates.Environment;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NamesTest {
+
+  @Test
+  void of_composite () {
+
+    final var name =
+      Names.of (
+        "names.test.composite.path"
+      );
+
+    assertEquals (
+      "names.test.composite.path",
+      name.toPath ()
+    );
+
+    assertEquals (
+      "path",
+      name.value ()
+    );
+
+    assertSame (
+      Names.of ( "names" ).name ( "test" ).name ( "composite" ).name ( "path" ),
+      name
+    );
+
+  }
+
+  @Test
+  void of_empty_segments () {
+
+    assertSame (
+      Names.of ( "names.test.empty" ),
+      Names.of ( ".names..test.empty." )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> Names.of ( "..." )
+    );
+
+  }
+
+  @Test
+  void of_class_and_member () throws NoSuchMethodException {
+
+    final var name =
+      Names.of (
+        NamesTest.class
+      );
+
+    assertSame (
+      Names.of ( NamesTest.class.getName () ),
+      name
+    );
+
+    assertSame (
+      name,
+      Names.of ( NamesTest.class )
+    );
+
+    assertSame (
+      name.name ( "of_class_and_member" ),
+      Names.of ( NamesTest.class.getDeclaredMethod ( "of_class_and_member" ) )
+    );
+
+  }
+
+  @Test
+  void name_relative () {
+
+    final var prefix =
+      Names.of (
+        "names.test.relative"
+      );
+
+    final var name =
+      prefix.name (
+        "a..b.c"
+      );
+
+    assertSame (
+      prefix.name ( "a" ).name ( "b" ).name ( "c" ),
+      name
+    );
+
+    assertSame (
+      name,
+      prefix.name ( "a.b.c" )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> prefix.name ( ".." )
+    );
+
+  }
+
+  @Test
+  void name_chain () {
+
+    final var chain =
+      Names.of (
+        "names.test.chain.alpha.beta.gamma"
+      );
+
+    // each prefix along the chain holds a lone child, matched without hashing
+
+    assertSame (
+      chain,
+      Names.of ( "names.test.chain.alpha.beta.gamma" )
+    );
+
+    assertSame (
+      chain,
+      Names.of ( "names.test.chain" ).name ( "alpha.beta.gamma" )
+    );
+
+    // a segment of the same length that differs is not taken for the lone child
+
+    final var other =
+      Names.of (
+        "names.test.chain.alpha.betb.gamma"
+      );
+
+    assertNotSame (
+      chain,
+      other
+    );
+
+    assertEquals (
+      "names.test.chain.alpha.betb.gamma",
+      other.toPath ()
+    );
+
+    // with a sibling added mid-chain, both resolve through the child table
+
+    assertSame (
+      chain,
+      Names.of ( "names.test.chain.alpha.beta.gamma" )
+    );
+
+    assertSame (
+      other,
+      Names.of ( "names.test.chain.alpha.betb.gamma" )
+    );
+
+    assertSame (
+      chain.ancestor ( 2 ),
+      other.ancestor ( 2 )
+    );
+
+  }
+
+  @Test
+  void name_wide () {
+
+    final var prefix =
+      Names.of (
+        "names.test.wide"
+      );
+
+    final var children =
+      new Names.Name[1000];
+
+    for ( var i = 0; i < children.length; i++ ) {
+
+      children[i] =
+        prefix.name (
+          "child" + i
+        );
+
+    }
+
+    for ( var i = 0; i < children.length; i++ ) {
+
+      assertSame (
+        children[i],
+        prefix.name ( "child" + i )
+      );
+
+      assertSame (
+        prefix,
+        children[i].left ()
+      );
+
+    }
+
+    // segments with colliding hashes
+
+    assertNotSame (
+      prefix.name ( "Aa" ),
+      prefix.name ( "BB" )
+    );
+
+    assertEquals (
+      "BB",
+      prefix.name ( "BB" ).value ()
+    );
+
+  }
+
+  /*
+   * Races threads interning the same children in different orders, at sizes
+   * taking the child table from a lone child to an array, a node and nested
+   * nodes, with every thread having to resolve each child to the same name.
+   */
+
+  @Test
+  void name_concurrent () throws InterruptedException {
+
+    final var threads =
+      8;
+
+    for ( final var size : new int[]{ 1, 2, 8, 9, 17, 1000 } ) {
+
+      final var prefix =
+        Names.of (
+          "names.test.concurrent.size" + size
+        );
+
+      final var segments =
+        new ArrayList< String > ();
+
+      for ( var i = 0; i < size; i++ ) {
+        segments.add ( "child" + i );
+      }
+
+      final var results =
+        new Names.Name[threads][size];
+
+      final var start =
+        new CountDownLatch ( 1 );
+
+      final var workers =
+        new ArrayList< Thread > ();
+
+      for ( var t = 0; t < threads; t++ ) {
+
+        final var result =
+          results[t];
+
+        final var order =
+          new ArrayList< Integer > ();
+
+        for ( var i = 0; i < size; i++ ) {
+          order.add ( i );
+        }
+
+        Collections.shuffle (
+          order,
+          new Random ( t )
+        );
+
+        final var worker =
+          new Thread (
+            () -> {
+
+              try {
+                start.await ();
+              } catch ( final InterruptedException error ) {
+                return;
+              }
+
+              for ( final int i : order ) {
+
+                result[i] =
+                  prefix.name ( segments.get ( i ) );
+
+              }
+
+            }
+          );
+
+        worker.start ();
+
+        workers.add (
+          worker
+        );
+
+      }
+
+      start.countDown ();
+
+      for ( final var worker : workers ) {
+        worker.join ();
+      }
+
+      for ( var i = 0; i < size; i++ ) {
+
+        for ( var t = 0; t < threads; t++ ) {
+
+          assertSame (
+            results[0][i],
+            results[t][i]
+          );
+
+        }
+
+        assertSame (
+          results[0][i],
+          prefix.name ( segments.get ( i ) )
+        );
+
+        assertEquals (
+          segments.get ( i ),
+          results[0][i].value ()
+        );
+
+      }
+
+      assertEquals (
+        size,
+        prefix.stream ( Names.Traversal.DEPTH_FIRST ).count () - 1
+      );
+
+    }
+
+  }
+
+  @Test
+  void name_concatenation () {
+
+    final var prefix =
+      Names.of (
+        "names.test.concat"
+      );
+
+    assertSame (
+      Names.of ( "names.test.concat.a.b.c" ),
+      prefix.name ( Names.of ( "a.b.c" ) )
+    );
+
+  }
+
+  @Test
+  void deep () {
+
+    var name =
+      Names.of (
+        "names.test.deep"
+      );
+
+    for ( var i = 0; i < 100_000; i++ ) {
+
+      name =
+        name.name (
+          "d"
+        );
+
+    }
+
+    assertEquals (
+      100_003,
+      name.depth ()
+    );
+
+    assertEquals (
+      "names.test.deep".length () + 2 * 100_000,
+      name.toPath ().length ()
+    );
+
+    assertEquals (
+      (Integer) 100_003,
+      name.< Integer > foldTo (
+        root -> 1,
+        ( count, node ) -> count + 1
+      )
+    );
+
+    assertEquals (
+      (Integer) 100_003,
+      name.< Integer > foldFrom (
+        leaf -> 1,
+        ( count, node ) -> count + 1
+      )
+    );
+
+  }
+
+  @Test
+  void ancestor_and_within () {
+
+    final var name =
+      Names.of (
+        "names.test.within.a.b"
+      );
+
+    final var subtree =
+      Names.of (
+        "names.test.within"
+      );
+
+    assertEquals (
+      5,
+      name.depth ()
+    );
+
+    assertSame (
+      subtree,
+      name.ancestor ( 3 )
+    );
+
+    assertSame (
+      name,
+      name.ancestor ( 5 )
+    );
+
+    assertTrue (
+      name.isWithin ( subtree )
+    );
+
+    assertTrue (
+      name.isWithin ( name )
+    );
+
+    assertFalse (
+      subtree.isWithin ( name )
+    );
+
+    assertFalse (
+      name.isWithin ( Names.of ( "names.test.without" ) )
+    );
+
+    assertThrows (
+      IndexOutOfBoundsException.class,
+      () -> name.ancestor ( 0 )
+    );
+
+  }
+
+  @Test
+  void id () {
+
+    final var parent =
+      Names.of (
+        "names.test.id"
+      );
+
+    final var child =
+      parent.name (
+        "child"
+      );
+
+    assertNotEquals (
+      parent.id (),
+      child.id ()
+    );
+
+    assertSame (
+      child,
+      Names.of (
+        child.id ()
+      )
+    );
+
+    assertTrue (
+      child.id () < Names.count ()
+    );
+
+    assertNull (
+      Names.of (
+        Names.count () + 1024
+      )
+    );
+
+  }
+
+  private static WeakReference< Names.Name > dead (
+    final Names.Name prefix
+  ) {
+
+    return
+      new WeakReference<> (
+        prefix.name (
+          "dead"
+        )
+      );
+
+  }
+
+  @Test
+  void id_reuse () {
+
+    Names.configure (
+      Environments.single (
+        Names.of ( "io.substrates.spi.alpha.names.retention" ),
+        (Object) "WEAK"
+      )
+    );
+
+    try {
+
+      final var prefix =
+        Names.of (
+          "names.test.reuse"
+        );
+
+      final var ref =
+        dead (
+          prefix
+        );
+
+      for ( var i = 0; i < 50 && ref.get () != null; i++ ) {
+        System.gc ();
+      }
+
+      assertNull (
+        ref.get ()
+      );
+
+      // an id below the count can only have come from a collected name
+
+      final var count =
+        Names.count ();
+
+      final var held =
+        new ArrayList< Names.Name > ();
+
+      var reused =
+        false;
+
+      for ( var i = 0; i < 50 && !reused; i++ ) {
+
+        System.gc ();
+
+        final var name =
+          prefix.name (
+            "next" + i
+          );
+
+        held.add (
+          name
+        );
+
+        reused =
+          name.id () < count;
+
+      }
+
+      assertTrue (
+        reused
+      );
+
+    } finally {
+
+      Names.configure (
+        Environment.EMPTY
+      );
+
+    }
+
+    assertNull (
+      Names.of ( -1 )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> new Names.Table< Object > ().set ( -1, "" )
+    );
+
+  }
+
+  @Test
+  void bytes () {
+
+    final var name =
+      Names.of (
+        "names.test.bytes.été"
+      );
+
+    final var bytes =
+      name.pathBytes ();
+
+    assertEquals (
+      name.toPath (),
+      new String ( bytes, UTF_8 )
+    );
+
+    assertSame (
+      bytes,
+      name.pathBytes ()
+    );
+
+    assertEquals (
+      "été",
+      new String ( name.bytes (), UTF_8 )
+    );
+
+    final var buffer =
+      name.writeTo (
+        ByteBuffer.allocate ( 64 )
+      ).flip ();
+
+    assertEquals (
+      name.toPath (),
+      UTF_8.decode ( buffer ).toString ()
+    );
+
+  }
+
+  @Test
+  void of_sequence_and_buffer () {
+
+    final var name =
+      Names.of (
+        "names.test.parse.été.\uD83D\uDE00"
+      );
+
+    assertSame (
+      name,
+      Names.of (
+        new StringBuilder ( "names..test.parse.été.\uD83D\uDE00." )
+      )
+    );
+
+    final var buffer =
+      ByteBuffer.wrap (
+        "..names.test.parse.été.\uD83D\uDE00".getBytes ( UTF_8 )
+      ).position ( 2 );
+
+    assertSame (
+      name,
+      Names.of (
+        buffer
+      )
+    );
+
+    assertEquals (
+      2,
+      buffer.position ()
+    );
+
+    assertEquals (
+      "names.test.parse.new",
+      Names.of (
+        ByteBuffer.wrap (
+          "names.test.parse.new".getBytes ( UTF_8 )
+        )
+      ).toPath ()
+    );
+
+    assertEquals (
+      "names.test.parse.\uFFFD",
+      Names.of (
+        ByteBuffer.wrap (
+          new byte[]{ 'n', 'a', 'm', 'e', 's', '.', 't', 'e', 's', 't', '.', 'p', 'a', 'r', 's', 'e', '.', (byte) 0xC0 }
+        )
+      ).toPath ()
+    );
+
+  }
+
+  @Test
+  void ephemeral () {
+
+    final var prefix =
+      Names.of (
+        "names.test.ephemeral"
+      );
+
+    final var count =
+      Names.count ();
+
+    final var session =
+      prefix.ephemeral (
+        "session.42"
+      );
+
+    assertTrue (
+      session.isEphemeral ()
+    );
+
+    assertEquals (
+      count,
+      Names.count ()
+    );
+
+    assertEquals (
+      "names.test.ephemeral.session.42",
+      session.toPath ()
+    );
+
+    assertSame (
+      prefix,
+      session.ancestor ( 3 )
+    );
+
+    assertTrue (
+      session.isWithin ( prefix )
+    );
+
+    assertNotSame (
+      session,
+      prefix.ephemeral ( "session.42" )
+    );
+
+    assertEquals (
+      session,
+      prefix.ephemeral ( "session.42" )
+    );
+
+    // made afresh, as an ephemeral name has no id to be held under, but equal by name
+
+    assertEquals (
+      Types.of ( session ),
+      Types.of ( prefix.ephemeral ( "session.42" ) )
+    );
+
+    final var child =
+      session.name (
+        "child"
+      );
+
+    assertTrue (
+      child.isEphemeral ()
+    );
+
+    assertTrue (
+      child.isWithin ( prefix.ephemeral ( "session" ) )
+    );
+
+    final var interned =
+      prefix.name (
+        "session.42"
+      );
+
+    assertEquals (
+      interned,
+      session
+    );
+
+    assertEquals (
+      session,
+      interned
+    );
+
+    assertEquals (
+      interned.hashCode (),
+      session.hashCode ()
+    );
+
+    assertEquals (
+      "value",
+      new HashMap<> (
+        Map.of ( interned, "value" )
+      ).get ( session )
+    );
+
+    assertNotEquals (
+      session,
+      prefix.ephemeral ( "session.43" )
+    );
+
+    assertNotEquals (
+      interned,
+      prefix.name ( "session.43" )
+    );
+
+  }
+
+  @Test
+  void stream () {
+
+    final var root =
+      Names.of (
+        "names.test.stream"
+      );
+
+    for ( final var path : new String[]{ "a.x", "a.y.z", "b", "c.x" } ) {
+      root.name ( path );
+    }
+
+    final var depthFirst =
+      root
+        .stream ( Names.Traversal.DEPTH_FIRST )
+        .toList ();
+
+    final var breadthFirst =
+      root
+        .stream ( Names.Traversal.BREADTH_FIRST )
+        .toList ();
+
+    assertEquals (
+      8,
+      depthFirst.size ()
+    );
+
+    assertEquals (
+      Set.copyOf ( depthFirst ),
+      Set.copyOf ( breadthFirst )
+    );
+
+    assertSame (
+      root,
+      depthFirst.get ( 0 )
+    );
+
+    for ( var i = 1; i < depthFirst.size (); i++ ) {
+
+      // each name directly follows a name within the subtree of its parent
+
+      assertTrue (
+        depthFirst.get ( i - 1 ).isWithin ( depthFirst.get ( i ).left () )
+      );
+
+      assertTrue (
+        breadthFirst.get ( i - 1 ).depth () <= breadthFirst.get ( i ).depth ()
+      );
+
+    }
+
+    assertTrue (
+      Names.stream ().anyMatch ( name -> name == depthFirst.get ( 7 ) )
+    );
+
+    assertTrue (
+      Names.stream ( Names.Traversal.BREADTH_FIRST ).anyMatch ( name -> name == depthFirst.get ( 7 ) )
+    );
+
+    final var summary =
+      Names.summary ();
+
+    assertTrue (
+      summary.names () >= 8 && summary.names () <= summary.ids ()
+    );
+
+    assertTrue (
+      summary.depth () >= 6
+    );
+
+    assertTrue (
+      summary.nodes () > 0 && summary.pages () > 0
+    );
+
+    assertTrue (
+      summary.bytes () > summary.segments ()
+    );
+
+  }
+
+  @Test
+  void of_bulk () {
+
+    final var paths =
+      new ArrayList< String > ();
+
+    for ( var i = 0; i < 5000; i++ ) {
+      paths.add ( "names.test.bulk.group" + i % 7 + ".metric" + i );
+    }
+
+    paths.add ( "names.test.bulk.group1" );
+    paths.add ( "names.test.bulk..group1." );
+    paths.add ( "names.test.bulk.group1.metric1" );
+    paths.add ( "names-test-bulk" );
+
+    final var names =
+      Names.of (
+        paths
+      );
+
+    assertEquals (
+      paths.size (),
+      names.size ()
+    );
+
+    for ( var i = 0; i < paths.size (); i++ ) {
+
+      assertSame (
+        Names.of ( paths.get ( i ) ),
+        names.get ( i )
+      );
+
+    }
+
+    assertSame (
+      names.get ( 5000 ),
+      names.get ( 5001 )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> Names.of ( List.of ( "names.test.bulk.valid", ".." ) )
+    );
+
+  }
+
+  @Test
+  void to_path_separator () {
+
+    final var name =
+      Names.of (
+        "names.test.separator"
+      );
+
+    assertEquals (
+      "names/test/separator",
+      name.toPath ( '/' )
+    );
+
+    assertEquals (
+      "names_test_separator",
+      name.toPath ( '_' )
+    );
+
+    assertSame (
+      name.toPath ( '/' ),
+      name.toPath ( '/' )
+    );
+
+    assertSame (
+      name.toPath (),
+      name.toPath ( '.' )
+    );
+
+    assertEquals (
+      "names",
+      name.ancestor ( 1 ).toPath ( '/' )
+    );
+
+  }
+
+  private static Path sibling (
+    final Path path,
+    final String suffix
+  ) {
+
+    return
+      path.resolveSibling (
+        path.getFileName () + suffix
+      );
+
+  }
+
+  @Test
+  void dictionary () throws IOException {
+
+    final var path =
+      Files.createTempFile (
+        "names",
+        ".dictionary"
+      );
+
+    try {
+
+      // a dictionary from a previous run with ids beyond any allocated here
+
+      final var id =
+        Names.count ();
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        dictionary.append ( id, Dictionaries.ROOT, "preloaded".getBytes ( UTF_8 ) );
+        dictionary.append ( id + 1, id, "name".getBytes ( UTF_8 ) );
+
+      }
+
+      Names.attach (
+        path
+      );
+
+      final var preloaded =
+        Names.of (
+          id + 1
+        );
+
+      assertEquals (
+        "preloaded.name",
+        preloaded.toPath ()
+      );
+
+      assertSame (
+        preloaded,
+        Names.of ( "preloaded.name" )
+      );
+
+      final var appended =
+        preloaded.name (
+          "appended"
+        );
+
+      Names.detach ();
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        assertTrue (
+          dictionary.load ().contains (
+            new Dictionaries.Entry (
+              appended.id (),
+              preloaded.id (),
+              "appended"
+            )
+          )
+        );
+
+      }
+
+    } finally {
+
+      Names.detach ();
+
+      Files.delete (
+        path
+      );
+
+      Files.deleteIfExists (
+        sibling ( path, ".lock" )
+      );
+
+    }
+
+  }
+
+  @Test
+  void dictionary_compaction () throws IOException {
+
+    final var path =
+      Files.createTempFile (
+        "names",
+        ".dictionary"
+      );
+
+    try {
+
+      final var id =
+        Names.count ();
+
+      // a duplicate, and a record whose parent was never recorded
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        dictionary.append ( id, Dictionaries.ROOT, "compacted".getBytes ( UTF_8 ) );
+        dictionary.append ( id, Dictionaries.ROOT, "compacted".getBytes ( UTF_8 ) );
+        dictionary.append ( id + 1, Integer.MAX_VALUE, "orphan".getBytes ( UTF_8 ) );
+
+      }
+
+      Names.attach (
+        path
+      );
+
+      final var compacted =
+        Names.of (
+          "compacted"
+        );
+
+      // held by the writer attached, so opened read-only with appends ignored
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        assertFalse (
+          dictionary.isWritable ()
+        );
+
+        dictionary.append ( id + 2, Dictionaries.ROOT, "ignored".getBytes ( UTF_8 ) );
+
+      }
+
+      Names.detach ();
+
+      // compacted into a sibling file moved over the dictionary
+
+      assertFalse (
+        Files.exists ( sibling ( path, ".compacting" ) )
+      );
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        final var entries =
+          dictionary.load ();
+
+        assertEquals (
+          1,
+          entries.stream ().filter ( entry -> entry.segment ().equals ( "compacted" ) ).count ()
+        );
+
+        assertTrue (
+          entries.contains (
+            new Dictionaries.Entry (
+              compacted.id (),
+              Dictionaries.ROOT,
+              "compacted"
+            )
+          )
+        );
+
+        assertTrue (
+          entries.stream ().noneMatch ( entry -> entry.segment ().equals ( "orphan" ) || entry.segment ().equals ( "ignored" ) )
+        );
+
+      }
+
+    } finally {
+
+      Names.detach ();
+
+      Files.delete (
+        path
+      );
+
+      Files.deleteIfExists (
+        sibling ( path, ".lock" )
+      );
+
+    }
+
+  }
+
+  @Test
+  void dictionary_duplicate_ids () throws IOException {
+
+    final var path =
+      Files.createTempFile (
+        "names",
+        ".dictionary"
+      );
+
+    try {
+
+      final var id =
+        Names.count ();
+
+      // two names recorded under the same id, with the id of a third left unclaimed
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        dictionary.append ( id, Dictionaries.ROOT, "claimed".getBytes ( UTF_8 ) );
+        dictionary.append ( id, Dictionaries.ROOT, "reassigned".getBytes ( UTF_8 ) );
+        dictionary.append ( id + 1, Integer.MAX_VALUE, "orphan".getBytes ( UTF_8 ) );
+
+      }
+
+      Names.attach (
+        path
+      );
+
+      final var claimed =
+        Names.of (
+          "claimed"
+        );
+
+      final var reassigned =
+        Names.of (
+          "reassigned"
+        );
+
+      assertEquals (
+        id,
+        claimed.id ()
+      );
+
+      assertNotEquals (
+        id,
+        reassigned.id ()
+      );
+
+      assertSame (
+        claimed,
+        Names.of ( id )
+      );
+
+      // every id handed out from here on is distinct from those of live names
+
+      final var ids =
+        new HashMap< Integer, Names.Name > ();
+
+      for ( final var name : List.of ( claimed, reassigned ) ) {
+        ids.put ( name.id (), name );
+      }
+
+      for ( var i = 0; i < 16; i++ ) {
+
+        final var name =
+          Names.of (
+            "names.test.duplicate" + i
+          );
+
+        assertNull (
+          ids.put ( name.id (), name )
+        );
+
+      }
+
+    } finally {
+
+      Names.detach ();
+
+      Files.delete (
+        path
+      );
+
+      Files.deleteIfExists (
+        sibling ( path, ".lock" )
+      );
+
+    }
+
+  }
+
+  @Test
+  void dictionary_corrupt () throws IOException {
+
+    final var path =
+      Files.createTempFile (
+        "names",
+        ".dictionary"
+      );
+
+    try {
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        dictionary.append ( Names.count (), Dictionaries.ROOT, "intact".getBytes ( UTF_8 ) );
+
+      }
+
+      // a record with a negative length, followed by one claiming more bytes than remain
+
+      try ( final var channel = FileChannel.open ( path, StandardOpenOption.WRITE ) ) {
+
+        final var size =
+          (int) channel.size ();
+
+        final var records =
+          ByteBuffer.allocate ( 24 )
+            .putInt ( 1 ).putInt ( Dictionaries.ROOT ).putInt ( -8 )
+            .putInt ( 2 ).putInt ( Dictionaries.ROOT ).putInt ( Integer.MAX_VALUE )
+            .flip ();
+
+        channel.write ( records, size );
+
+        channel.write ( ByteBuffer.allocate ( 4 ).putInt ( size + 24 ).flip (), 8 );
+
+      }
+
+      try ( final var dictionary = Dictionaries.open ( path ) ) {
+
+        final var entries =
+          dictionary.load ();
+
+        assertEquals (
+          1,
+          entries.size ()
+        );
+
+        assertEquals (
+          "intact",
+          entries.get ( 0 ).segment ()
+        );
+
+      }
+
+      Names.attach (
+        path
+      );
+
+      assertEquals (
+        "intact",
+        Names.of ( "intact" ).toPath ()
+      );
+
+    } finally {
+
+      Names.detach ();
+
+      Files.delete (
+        path
+      );
+
+      Files.deleteIfExists (
+        sibling ( path, ".lock" )
+      );
+
+    }
+
+  }
+
+  @Test
+  void retention_invalid () {
+
+    final var error =
+      assertThrows (
+        IllegalArgumentException.class,
+        () -> Names.configure (
+          Environments.single (
+            Names.of ( "io.substrates.spi.alpha.names.retention" ),
+            (Object) "SOFT"
+          )
+        )
+      );
+
+    assertEquals (
+      "Invalid Retention: SOFT",
+      error.getMessage ()
+    );
+
+  }
+
+  @Test
+  void retention_weak () {
+
+    Names.configure (
+      Environments.single (
+        Names.of ( "io.substrates.spi.alpha.names.retention" ),
+        (Object) "WEAK"
+      )
+    );
+
+    try {
+
+      final var prefix =
+        Names.of (
+          "names.test.weak"
+        );
+
+      final var name =
+        prefix.name (
+          "live"
+        );
+
+      final var ref =
+        new WeakReference<> (
+          prefix.name (
+            "dead"
+          )
+        );
+
+      for ( var i = 0; i < 50 && ref.get () != null; i++ ) {
+        System.gc ();
+      }
+
+      assertNull (
+        ref.get ()
+      );
+
+      assertSame (
+        name,
+        Names.of ( "names.test.weak.live" )
+      );
+
+    } finally {
+
+      Names.configure (
+        Environment.EMPTY
+      );
+
+    }
+
+  }
+
+  private static void bounded (
+    final int capacity
+  ) {
+
+    Names.configure (
+      Environments.single (
+        Names.of ( "io.substrates.spi.alpha.names.retention" ),
+        (Object) "BOUNDED"
+      ).override (
+        Environments.single (
+          Names.of ( "io.substrates.spi.alpha.names.capacity" ),
+          capacity
+        )
+      )
+    );
+
+  }
+
+  @Test
+  void retention_bounded_reconfigure () {
+
+    bounded ( 16 );
+
+    try {
+
+      final var path =
+        "names.test.bounded.held";
+
+      Names.of (
+        path
+      );
+
+      // the clock replaced releases the name for the new clock to admit when used
+
+      bounded ( 16 );
+
+      final var ref =
+        new WeakReference<> (
+          Names.of (
+            path
+          )
+        );
+
+      for ( var i = 0; i < 10; i++ ) {
+        System.gc ();
+      }
+
+      assertSame (
+        ref.get (),
+        Names.of ( path )
+      );
+
+    } finally {
+
+      Names.configure (
+        Environment.EMPTY
+      );
+
+    }
+
+  }
+
+}